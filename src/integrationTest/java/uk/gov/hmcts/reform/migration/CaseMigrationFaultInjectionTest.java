@@ -0,0 +1,25 @@
+package uk.gov.hmcts.reform.migration;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import uk.gov.hmcts.reform.migration.stubs.MigrationStubs;
+import uk.gov.hmcts.reform.migration.stubs.StubProfile;
+
+/**
+ * A few hundred cases through stubs failing, throttling and conflicting far more often than a soak's, with the
+ * faults rolled from a fixed seed. Checks outcomes only, so it is quick and steady enough for every build.
+ */
+class CaseMigrationFaultInjectionTest extends StubbedMigrationTest {
+
+    private static final MigrationStubs STUBS = new MigrationStubs(StubProfile.faultInjection());
+
+    @DynamicPropertySource
+    static void stubbedServices(DynamicPropertyRegistry registry) {
+        useStubs(registry, STUBS);
+    }
+
+    @Override
+    protected MigrationStubs stubs() {
+        return STUBS;
+    }
+}
@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.migration;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import uk.gov.hmcts.reform.migration.stubs.MigrationStubs;
+import uk.gov.hmcts.reform.migration.stubs.StubProfile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Soak runs of tens of thousands of cases against stubs sized by the {@code soak.*} system properties, which also
+ * have to keep up a minimum throughput. Too long for every build, so they only run with {@code ./gradlew soak}.
+ */
+@Tag("soak")
+class CaseMigrationSoakTest extends StubbedMigrationTest {
+
+    private static final MigrationStubs STUBS = new MigrationStubs(StubProfile.fromSystemProperties());
+
+    @DynamicPropertySource
+    static void stubbedServices(DynamicPropertyRegistry registry) {
+        useStubs(registry, STUBS);
+    }
+
+    @Override
+    protected MigrationStubs stubs() {
+        return STUBS;
+    }
+
+    @Override
+    protected void assertRun(double seconds) {
+        super.assertRun(seconds);
+
+        assertThat(STUBS.getCases().size() / seconds).isGreaterThanOrEqualTo(STUBS.getProfile().getMinThroughput());
+    }
+}
@@ -0,0 +1,13 @@
+package uk.gov.hmcts.reform.migration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The same runs on virtual threads, loading the query's cases from several partitions at once.
+ */
+@TestPropertySource(properties = {
+    "case-migration.virtual_threads=true",
+    "case-migration.es.partitions=4"
+})
+class CaseMigrationVirtualThreadsSoakTest extends CaseMigrationSoakTest {
+}
@@ -0,0 +1,120 @@
+package uk.gov.hmcts.reform.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import uk.gov.hmcts.reform.migration.processing.OutcomeSnapshot;
+import uk.gov.hmcts.reform.migration.query.MatchQuery;
+import uk.gov.hmcts.reform.migration.stubs.MigrationStubs;
+import uk.gov.hmcts.reform.migration.stubs.StubCases;
+import uk.gov.hmcts.reform.migration.stubs.StubProfile;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.MIGRATED;
+
+/**
+ * Runs whole migrations, through the real Feign clients and connection pool, against stubbed services that are
+ * slow and unreliable in the ways a {@link StubProfile} sets, and checks every case ends up with the outcome it
+ * should, once.
+ *
+ * <p>Each test gets a new application context, as the processor is good for a single run.
+ */
+@SpringBootTest(classes = CaseMigrationRunner.class, webEnvironment = NONE, properties = {
+    "case-migration.enabled=false",
+    "case-migration.processing.id=DFPL-log",
+    "case-migration.use_case_id_mapping=false",
+    "case-migration.timeout=1800",
+    "case-migration.retry.max_attempts=5",
+    "case-migration.retry.base_delay_ms=10",
+    "case-migration.retry.max_delay_ms=200",
+    "case-migration.token.check_interval_s=0",
+    "default.query.size=100",
+    "spring.jmx.enabled=false",
+    "logging.level.uk.gov.hmcts.reform=ERROR",
+    "logging.level.uk.gov.hmcts.reform.migration.StubbedMigrationTest=INFO"
+})
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+abstract class StubbedMigrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StubbedMigrationTest.class);
+
+    @Autowired
+    protected CaseMigrationProcessor processor;
+
+    /**
+     * Points the application at the stubs, starting them if they are not running yet.
+     */
+    static void useStubs(DynamicPropertyRegistry registry, MigrationStubs stubs) {
+        stubs.start();
+        registry.add("core_case_data.api.url", stubs::baseUrl);
+        registry.add("idam.api.url", stubs::baseUrl);
+        registry.add("idam.s2s-auth.url", stubs::baseUrl);
+        registry.add("migration.jurisdiction", () -> StubCases.JURISDICTION);
+        registry.add("migration.caseType", () -> StubCases.CASE_TYPE);
+        registry.add("default.thread.limit", () -> stubs.getProfile().getThreads());
+        registry.add("case-migration.max_in_flight", () -> stubs.getProfile().getMaxInFlight());
+    }
+
+    /**
+     * The stubs of the test class, shared by every context and left running until the test JVM exits.
+     */
+    protected abstract MigrationStubs stubs();
+
+    @BeforeEach
+    void resetStubs() {
+        stubs().reset();
+    }
+
+    @Test
+    void shouldMigrateEveryCaseTheQueryFinds() {
+        long startedAt = System.nanoTime();
+
+        processor.migrateQuery(MatchQuery.of("state", "Open"));
+
+        assertRun((System.nanoTime() - startedAt) / 1e9);
+    }
+
+    @Test
+    void shouldMigrateEveryCaseInTheList() {
+        List<String> caseIds = LongStream.of(stubs().getCases().ids())
+            .mapToObj(Long::toString)
+            .collect(toList());
+        long startedAt = System.nanoTime();
+
+        processor.migrateList(caseIds);
+
+        assertRun((System.nanoTime() - startedAt) / 1e9);
+    }
+
+    protected void assertRun(double seconds) {
+        MigrationStubs stubs = stubs();
+        StubCases cases = stubs.getCases();
+        OutcomeSnapshot outcomes = processor.getOutcomes();
+        LOG.info("Processed {} cases in {}s, {} a second, over {} pages, with {} errors, {} throttled and {} "
+                + "conflicts injected ({})", outcomes.getProcessedCount(), Math.round(seconds),
+            Math.round(cases.size() / seconds), stubs.getPages(), stubs.getInjectedErrors(),
+            stubs.getInjectedThrottles(), stubs.getInjectedConflicts(), stubs.getProfile());
+
+        // every case has an outcome, and the right one despite the faults along the way
+        assertThat(outcomes.getProcessedCount()).isEqualTo(cases.size());
+        assertThat(outcomes.getCaseIds(MIGRATED)).isEqualTo(cases.migratableIds());
+        assertThat(outcomes.getCaseIds(FAILED)).isEqualTo(cases.rejectedIds());
+        assertThat(outcomes.getSkippedCount()).isZero();
+
+        // and CCD saw each case submitted exactly once
+        assertThat(stubs.getSubmittedIds()).isEqualTo(cases.migratableIds());
+        assertThat(stubs.getDuplicateSubmissions()).isZero();
+    }
+}
@@ -0,0 +1,101 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import uk.gov.hmcts.reform.migration.processing.ConcurrentLongSet;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers starting and submitting an event on one of the stubbed cases, keeping track of the cases submitted.
+ *
+ * <p>The cases the profile rejects fail with a 422 when the event is started. Any call may instead fail as the
+ * profile asks, and submissions may also conflict, in which case the case is not counted as submitted.
+ */
+final class CaseEventTransformer extends ResponseDefinitionTransformer {
+
+    static final String NAME = "case-event";
+
+    private static final Pattern CASE_ID = Pattern.compile("/cases/(\\d+)/");
+
+    private final StubCases cases;
+    private final Faults faults;
+    private final ConcurrentLongSet submitted = new ConcurrentLongSet();
+    private final LongAdder duplicateSubmissions = new LongAdder();
+
+    CaseEventTransformer(StubCases cases, Faults faults) {
+        this.cases = cases;
+        this.faults = faults;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public ResponseDefinition transform(Request request, ResponseDefinition response, FileSource files,
+                                       Parameters parameters) {
+        Matcher matcher = CASE_ID.matcher(request.getUrl());
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("No case id in " + request.getUrl());
+        }
+        long caseId = Long.parseLong(matcher.group(1));
+        boolean submit = request.getMethod() == RequestMethod.POST;
+
+        ResponseDefinition fault = faults.inject(response);
+        if (fault == null && submit) {
+            fault = faults.injectConflict(response);
+        }
+        if (fault != null) {
+            return fault;
+        }
+        if (cases.rejects(caseId)) {
+            return ResponseDefinitionBuilder.like(response)
+                .withStatus(422)
+                .withBody("{\"message\":\"Case data validation failed\"}")
+                .build();
+        }
+
+        String body;
+        if (submit) {
+            if (!submitted.add(caseId)) {
+                duplicateSubmissions.increment();
+            }
+            body = StubCases.toJson(caseId);
+        } else {
+            body = "{\"case_details\":" + StubCases.toJson(caseId)
+                + ",\"event_id\":\"migrateCase\""
+                + ",\"token\":\"event-token-" + caseId + "\"}";
+        }
+        return ResponseDefinitionBuilder.like(response).withBody(body).build();
+    }
+
+    /**
+     * Cases with at least one successful submission, in ascending order.
+     */
+    long[] getSubmitted() {
+        return submitted.toArray();
+    }
+
+    long getDuplicateSubmissions() {
+        return duplicateSubmissions.sum();
+    }
+
+    void reset() {
+        submitted.clear();
+        duplicateSubmissions.reset();
+    }
+}
@@ -0,0 +1,126 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers {@code /searchCases} from the stubbed cases, following the parts of the query the tool relies on: the
+ * page size, the order by reference, {@code search_after} and reference ranges. Everything else in the query is
+ * taken to match every case.
+ *
+ * <p>Pages are failed and slowed down as the profile asks, but counts and the lookups of the first reference are
+ * not, as the tool does not retry them.
+ */
+final class CaseSearchTransformer extends ResponseDefinitionTransformer {
+
+    static final String NAME = "case-search";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String REFERENCE = "reference";
+
+    private final StubCases cases;
+    private final StubProfile profile;
+    private final Faults faults;
+    private final LongAdder pages = new LongAdder();
+
+    CaseSearchTransformer(StubCases cases, StubProfile profile, Faults faults) {
+        this.cases = cases;
+        this.profile = profile;
+        this.faults = faults;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public ResponseDefinition transform(Request request, ResponseDefinition response, FileSource files,
+                                       Parameters parameters) {
+        JsonNode search = parse(request.getBodyAsString());
+        int size = search.path("size").asInt(10);
+        JsonNode sort = search.path("sort");
+        boolean page = size > 1 && !sort.isMissingNode();
+        if (page) {
+            ResponseDefinition fault = faults.inject(response);
+            if (fault != null) {
+                return fault;
+            }
+        }
+
+        int from = 0;
+        int to = cases.size();
+        for (JsonNode range : search.findValues("range")) {
+            JsonNode reference = range.path(REFERENCE);
+            if (reference.has("gte")) {
+                from = Math.max(from, cases.indexOf(reference.get("gte").asLong()));
+            }
+            if (reference.has("lt")) {
+                to = Math.min(to, cases.indexOf(reference.get("lt").asLong()));
+            }
+        }
+        int total = Math.max(0, to - from);
+
+        boolean descending = "desc".equals(sort.findPath("order").asText());
+        JsonNode after = search.path("search_after");
+        if (after.size() > 0) {
+            long afterId = after.get(0).asLong();
+            if (descending) {
+                to = Math.min(to, cases.indexOf(afterId));
+            } else {
+                from = Math.max(from, cases.indexOf(afterId + 1));
+            }
+        }
+
+        int count = Math.max(0, Math.min(size, to - from));
+        StringBuilder body = new StringBuilder(64 + count * 128)
+            .append("{\"total\":").append(total).append(",\"cases\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(StubCases.toJson(cases.get(descending ? to - 1 - i : from + i)));
+        }
+        body.append("]}");
+
+        ResponseDefinitionBuilder result = ResponseDefinitionBuilder.like(response).withBody(body.toString());
+        if (page) {
+            pages.increment();
+            if (faults.roll() < profile.getSlowPageRate()) {
+                result.withFixedDelay(profile.getSlowPageMs());
+            }
+        }
+        return result.build();
+    }
+
+    long getPages() {
+        return pages.sum();
+    }
+
+    void reset() {
+        pages.reset();
+    }
+
+    private static JsonNode parse(String body) {
+        try {
+            return MAPPER.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search request is not JSON: " + body, e);
+        }
+    }
+}
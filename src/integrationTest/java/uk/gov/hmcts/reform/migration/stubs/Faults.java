@@ -0,0 +1,95 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replaces a share of the stubbed responses with the failures CCD gives under load, keeping their latency.
+ *
+ * <p>Which calls fail is rolled from the profile's seed, starting over on each reset. The calls of a concurrent run
+ * still arrive in a different order each time, so the same seed gives the same number of faults rather than the
+ * same faulty calls.
+ */
+final class Faults {
+
+    private final StubProfile profile;
+    private final Random random;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    Faults(StubProfile profile) {
+        this.profile = profile;
+        this.random = new Random(profile.getSeed());
+    }
+
+    /**
+     * A 500 or a 429 as often as the profile asks for them.
+     *
+     * @return the failure to respond with, or null to respond as usual
+     */
+    ResponseDefinition inject(ResponseDefinition response) {
+        double roll = roll();
+        if (roll < profile.getThrottleRate()) {
+            throttles.increment();
+            return ResponseDefinitionBuilder.like(response)
+                .withStatus(429)
+                .withHeader("Retry-After", String.valueOf(profile.getRetryAfterSeconds()))
+                .withBody("{\"message\":\"Too many requests\"}")
+                .build();
+        }
+        if (roll < profile.getThrottleRate() + profile.getErrorRate()) {
+            errors.increment();
+            return ResponseDefinitionBuilder.like(response)
+                .withStatus(500)
+                .withBody("{\"message\":\"Internal server error\"}")
+                .build();
+        }
+        return null;
+    }
+
+    /**
+     * A 409 as often as the profile asks for them, for an event submission.
+     *
+     * @return the failure to respond with, or null to respond as usual
+     */
+    ResponseDefinition injectConflict(ResponseDefinition response) {
+        if (roll() >= profile.getConflictRate()) {
+            return null;
+        }
+        conflicts.increment();
+        return ResponseDefinitionBuilder.like(response)
+            .withStatus(409)
+            .withBody("{\"message\":\"Case data has been altered outside of this transaction\"}")
+            .build();
+    }
+
+    /**
+     * A number between 0 and 1 from the seeded rolls, shared by everything that decides whether to misbehave.
+     */
+    double roll() {
+        return random.nextDouble();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    long getThrottles() {
+        return throttles.sum();
+    }
+
+    long getConflicts() {
+        return conflicts.sum();
+    }
+
+    void reset() {
+        random.setSeed(profile.getSeed());
+        errors.reset();
+        throttles.reset();
+        conflicts.reset();
+    }
+}
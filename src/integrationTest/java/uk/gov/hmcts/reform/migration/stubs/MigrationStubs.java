@@ -0,0 +1,167 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+
+import java.time.Instant;
+import java.util.Base64;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.temporal.ChronoUnit.HOURS;
+
+/**
+ * Local stand in for everything the tool calls: IDAM, S2S and CCD's search and event endpoints, all on one
+ * WireMock server behaving as the {@link StubProfile} asks.
+ *
+ * <p>Requests are not journaled, as a run makes hundreds of thousands of them; what the tests check is counted by
+ * the stubs themselves instead.
+ */
+public class MigrationStubs {
+
+    public static final String USER_ID = "a5b6c7d8-1111-2222-3333-444455556666";
+
+    private static final String CASE_EVENT_PATH = "/caseworkers/[^/]+/jurisdictions/[^/]+/case-types/[^/]+"
+        + "/cases/\\d+";
+
+    private final StubProfile profile;
+    private final StubCases cases;
+    private final Faults faults;
+    private final CaseSearchTransformer caseSearch;
+    private final CaseEventTransformer caseEvents;
+    private final WireMockServer server;
+
+    public MigrationStubs(StubProfile profile) {
+        this.profile = profile;
+        this.cases = new StubCases(profile.getCases(), profile.getRejectEvery());
+        this.faults = new Faults(profile);
+        this.caseSearch = new CaseSearchTransformer(cases, profile, faults);
+        this.caseEvents = new CaseEventTransformer(cases, faults);
+        // enough threads that the stubs are never what limits the run, with delays not holding any of them
+        int threads = Math.max(profile.getThreads(), profile.getMaxInFlight()) * 2 + 16;
+        this.server = new WireMockServer(options()
+            .dynamicPort()
+            .containerThreads(threads)
+            .asynchronousResponseEnabled(true)
+            .asynchronousResponseThreads(threads)
+            .disableRequestJournal()
+            .extensions(caseSearch, caseEvents));
+    }
+
+    /**
+     * Starts the server and sets up the stubs, unless already running.
+     */
+    public synchronized void start() {
+        if (server.isRunning()) {
+            return;
+        }
+        server.start();
+        stubIdam();
+        stubServiceAuth();
+        stubCcd();
+    }
+
+    public synchronized void stop() {
+        server.stop();
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    public StubProfile getProfile() {
+        return profile;
+    }
+
+    public StubCases getCases() {
+        return cases;
+    }
+
+    /**
+     * Cases with at least one successful event submission since the last reset, in ascending order.
+     */
+    public long[] getSubmittedIds() {
+        return caseEvents.getSubmitted();
+    }
+
+    /**
+     * Successful event submissions for a case that had already been submitted.
+     */
+    public long getDuplicateSubmissions() {
+        return caseEvents.getDuplicateSubmissions();
+    }
+
+    public long getPages() {
+        return caseSearch.getPages();
+    }
+
+    public long getInjectedErrors() {
+        return faults.getErrors();
+    }
+
+    public long getInjectedThrottles() {
+        return faults.getThrottles();
+    }
+
+    public long getInjectedConflicts() {
+        return faults.getConflicts();
+    }
+
+    public void reset() {
+        faults.reset();
+        caseSearch.reset();
+        caseEvents.reset();
+    }
+
+    private void stubIdam() {
+        String tokenResponse = "{\"access_token\":\"" + jwt("fpl-system-update@mailnesia.com") + "\","
+            + "\"token_type\":\"Bearer\",\"expires_in\":28800}";
+        String userDetails = "{\"id\":\"" + USER_ID + "\",\"uid\":\"" + USER_ID + "\","
+            + "\"email\":\"fpl-system-update@mailnesia.com\",\"forename\":\"System\",\"surname\":\"Update\","
+            + "\"roles\":[\"caseworker-publiclaw-systemupdate\"]}";
+
+        server.stubFor(post(urlPathEqualTo("/oauth2/authorize")).willReturn(okJson("{\"code\":\"auth-code\"}")));
+        server.stubFor(post(urlPathMatching("/oauth2/token|/o/token")).willReturn(okJson(tokenResponse)));
+        server.stubFor(get(urlPathMatching("/details|/o/userinfo")).willReturn(okJson(userDetails)));
+    }
+
+    private void stubServiceAuth() {
+        server.stubFor(post(urlPathEqualTo("/lease")).willReturn(aResponse()
+            .withHeader("Content-Type", "text/plain")
+            .withBody(jwt("fpl_case_service"))));
+    }
+
+    private void stubCcd() {
+        server.stubFor(post(urlPathEqualTo("/searchCases"))
+            .willReturn(ccdResponse().withTransformers(CaseSearchTransformer.NAME)));
+        server.stubFor(get(urlPathMatching(CASE_EVENT_PATH + "/event-triggers/[^/]+/token"))
+            .willReturn(ccdResponse().withTransformers(CaseEventTransformer.NAME)));
+        server.stubFor(post(urlPathMatching(CASE_EVENT_PATH + "/events"))
+            .willReturn(ccdResponse().withTransformers(CaseEventTransformer.NAME)));
+    }
+
+    private ResponseDefinitionBuilder ccdResponse() {
+        ResponseDefinitionBuilder response = okJson("{}");
+        if (profile.getLatencyMedianMs() > 0) {
+            response.withLogNormalRandomDelay(profile.getLatencyMedianMs(), profile.getLatencySigma());
+        }
+        return response;
+    }
+
+    /**
+     * An unsigned token for the subject, lasting longer than any run.
+     */
+    private static String jwt(String subject) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        long expiry = Instant.now().plus(8, HOURS).getEpochSecond();
+        return encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(UTF_8))
+            + "." + encoder.encodeToString(("{\"sub\":\"" + subject + "\",\"exp\":" + expiry + "}").getBytes(UTF_8))
+            + "." + encoder.encodeToString("signature".getBytes(UTF_8));
+    }
+}
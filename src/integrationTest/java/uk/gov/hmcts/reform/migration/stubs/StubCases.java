@@ -0,0 +1,69 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * The cases the stubbed CCD holds: evenly spaced 16 digit references, one in every {@code rejectEvery} of which
+ * cannot be migrated.
+ */
+public final class StubCases {
+
+    public static final String JURISDICTION = "PUBLICLAW";
+    public static final String CASE_TYPE = "CARE_SUPERVISION_EPO";
+
+    private static final long FIRST_CASE_ID = 1_600_000_000_000_000L;
+    // gaps between references, so range partitions do not line up with the cases
+    private static final long SPACING = 7;
+
+    private final long[] ids;
+    private final int rejectEvery;
+
+    public StubCases(int count, int rejectEvery) {
+        this.ids = LongStream.range(0, count).map(i -> FIRST_CASE_ID + i * SPACING).toArray();
+        this.rejectEvery = rejectEvery;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Every case reference, in ascending order.
+     */
+    public long[] ids() {
+        return ids.clone();
+    }
+
+    public boolean rejects(long id) {
+        return rejectEvery > 0 && (id - FIRST_CASE_ID) / SPACING % rejectEvery == rejectEvery - 1;
+    }
+
+    public long[] migratableIds() {
+        return Arrays.stream(ids).filter(id -> !rejects(id)).toArray();
+    }
+
+    public long[] rejectedIds() {
+        return Arrays.stream(ids).filter(this::rejects).toArray();
+    }
+
+    /**
+     * Index of the first case with a reference of at least {@code id}.
+     */
+    int indexOf(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    static String toJson(long id) {
+        return "{\"id\":" + id
+            + ",\"jurisdiction\":\"" + JURISDICTION + "\""
+            + ",\"case_type_id\":\"" + CASE_TYPE + "\""
+            + ",\"state\":\"Open\""
+            + ",\"case_data\":{}}";
+    }
+}
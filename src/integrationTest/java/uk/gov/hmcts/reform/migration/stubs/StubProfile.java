@@ -0,0 +1,178 @@
+package uk.gov.hmcts.reform.migration.stubs;
+
+/**
+ * How many cases the stubbed CCD holds and how badly it behaves.
+ *
+ * <p>Soak runs read theirs from {@code soak.*} system properties. The defaults keep {@code ./gradlew soak} to a
+ * couple of minutes while still failing, throttling and slowing down enough calls to exercise every recovery path,
+ * and a longer soak raises them, for example
+ * {@code ./gradlew soak -Dsoak.cases=200000 -Dsoak.latency_median_ms=80 -Dsoak.error_rate=0.05}. The fault
+ * injection run of {@code ./gradlew integration} uses a small fixed profile instead.
+ */
+public final class StubProfile {
+
+    private final int cases;
+    private final double latencyMedianMs;
+    private final double latencySigma;
+    private final double errorRate;
+    private final double throttleRate;
+    private final int retryAfterSeconds;
+    private final double conflictRate;
+    private final double slowPageRate;
+    private final int slowPageMs;
+    private final int rejectEvery;
+    private final int threads;
+    private final int maxInFlight;
+    private final double minThroughput;
+    private final long seed;
+
+    private StubProfile(int cases, double latencyMedianMs, double latencySigma, double errorRate, double throttleRate,
+                        int retryAfterSeconds, double conflictRate, double slowPageRate, int slowPageMs,
+                        int rejectEvery, int threads, int maxInFlight, double minThroughput, long seed) {
+        this.cases = cases;
+        this.latencyMedianMs = latencyMedianMs;
+        this.latencySigma = latencySigma;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.conflictRate = conflictRate;
+        this.slowPageRate = slowPageRate;
+        this.slowPageMs = slowPageMs;
+        this.rejectEvery = rejectEvery;
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+        this.minThroughput = minThroughput;
+        this.seed = seed;
+    }
+
+    public static StubProfile fromSystemProperties() {
+        return new StubProfile(
+            Integer.getInteger("soak.cases", 20_000),
+            doubleProperty("soak.latency_median_ms", 5),
+            doubleProperty("soak.latency_sigma", 0.5),
+            doubleProperty("soak.error_rate", 0.01),
+            doubleProperty("soak.throttle_rate", 0.0002),
+            Integer.getInteger("soak.retry_after_s", 1),
+            doubleProperty("soak.conflict_rate", 0.005),
+            doubleProperty("soak.slow_page_rate", 0.02),
+            Integer.getInteger("soak.slow_page_ms", 500),
+            Integer.getInteger("soak.reject_every", 1000),
+            Integer.getInteger("soak.threads", 16),
+            Integer.getInteger("soak.max_in_flight", 64),
+            doubleProperty("soak.min_throughput", 100),
+            Long.getLong("soak.seed", System.nanoTime()));
+    }
+
+    /**
+     * A few hundred cases with faults far more frequent than a soak's, so every recovery path is taken in seconds,
+     * and the same faults rolled each time.
+     */
+    public static StubProfile faultInjection() {
+        return new StubProfile(500, 1, 0.5, 0.02, 0.004, 1, 0.02, 0.1, 100, 50, 8, 16, 0, 42);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * Number of cases CCD holds, all of which the query finds.
+     */
+    public int getCases() {
+        return cases;
+    }
+
+    /**
+     * Median of the log-normal latency added to every CCD call, or 0 for none.
+     */
+    public double getLatencyMedianMs() {
+        return latencyMedianMs;
+    }
+
+    /**
+     * Spread of the latency, where larger values give a longer tail.
+     */
+    public double getLatencySigma() {
+        return latencySigma;
+    }
+
+    /**
+     * Share of CCD calls answered with a 500.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Share of CCD calls answered with a 429, asking callers to wait {@link #getRetryAfterSeconds()}.
+     */
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Share of event submissions answered with a 409, as if the case changed after the event started.
+     */
+    public double getConflictRate() {
+        return conflictRate;
+    }
+
+    /**
+     * Share of search pages delayed by {@link #getSlowPageMs()} on top of the usual latency.
+     */
+    public double getSlowPageRate() {
+        return slowPageRate;
+    }
+
+    public int getSlowPageMs() {
+        return slowPageMs;
+    }
+
+    /**
+     * One in how many cases CCD refuses to migrate with a 422, or 0 for none.
+     */
+    public int getRejectEvery() {
+        return rejectEvery;
+    }
+
+    /**
+     * Worker threads, when the processor runs on platform threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Cases in flight at once, when the processor runs on virtual threads.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Fewest cases a second a run must manage, across its whole duration.
+     */
+    public double getMinThroughput() {
+        return minThroughput;
+    }
+
+    /**
+     * Seed of the rolls deciding which calls fail, given with {@code soak.seed} to repeat a soak run's faults.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cases, latency median %sms sigma %s, %s errors, %s throttled for %ds, "
+                + "%s conflicts, %s slow pages of %dms, 1 in %d rejected, seed %d",
+            cases, latencyMedianMs, latencySigma, errorRate, throttleRate, retryAfterSeconds, conflictRate,
+            slowPageRate, slowPageMs, rejectEvery, seed);
+    }
+}
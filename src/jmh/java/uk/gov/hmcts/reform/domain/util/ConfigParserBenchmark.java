@@ -0,0 +1,45 @@
+package uk.gov.hmcts.reform.domain.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Parsing the case id list mapping at startup, up to the million case ids of the largest list based migrations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigParserBenchmark {
+
+    private static final long FIRST_CASE_ID = 1_600_000_000_000_000L;
+
+    @Param({"1000", "1000000"})
+    public int ids;
+
+    private String config;
+
+    @Setup
+    public void setUp() {
+        config = "DFPL-log=>1600000000000001;DFPL-list=>"
+            + LongStream.range(FIRST_CASE_ID, FIRST_CASE_ID + ids)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining("|"));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> parseConfig() {
+        return ConfigParser.parseConfig(config);
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording a run's worth of case ids in an outcome set, for references shaped like CCD's: a millisecond timestamp
+ * with three more digits, some way apart, added oldest or newest first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LongBitmapBenchmark {
+
+    @Param({"1000000"})
+    public int cases;
+
+    @Param({"ASC", "DESC"})
+    public String order;
+
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new long[cases];
+        long millis = 1_600_000_000_000L;
+        for (int i = 0; i < cases; i++) {
+            millis += 1 + random.nextInt(400);
+            ids[i] = millis * 1000 + random.nextInt(1000);
+        }
+        if ("DESC".equals(order)) {
+            for (int i = 0, j = cases - 1; i < j; i++, j--) {
+                long id = ids[i];
+                ids[i] = ids[j];
+                ids[j] = id;
+            }
+        }
+    }
+
+    @Benchmark
+    public LongBitmap add() {
+        LongBitmap bitmap = new LongBitmap();
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+}
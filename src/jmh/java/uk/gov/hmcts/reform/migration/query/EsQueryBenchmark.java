@@ -0,0 +1,81 @@
+package uk.gov.hmcts.reform.migration.query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.hmcts.reform.migration.repository.ElasticSearchRepository.SORT_BY_REF;
+
+/**
+ * Serialising the search for each page of cases, for a query shaped like the ones a run sends: the migration's
+ * query, leaving out the cases already migrated, within one partition of references.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EsQueryBenchmark {
+
+    private static final List<String> SOURCE_FIELDS = List.of("data.court", "data.dfjArea", "data.TTL");
+    private static final String AFTER = "1650000000000000";
+
+    // further levels of bool queries around the query, as partitions and exclusions stack up
+    @Param({"0", "4"})
+    public int nesting;
+
+    private EsQuery query;
+
+    @Setup
+    public void setUp() {
+        EsQuery openCases = BooleanQuery.builder()
+            .must(Must.builder()
+                .clauses(List.of(MatchQuery.of("state", "Open")))
+                .build())
+            .build();
+        EsQuery outstanding = BooleanQuery.builder()
+            .must(Must.of(openCases))
+            .mustNot(MustNot.of(TermQuery.of("data.migrationId.keyword", "DFPL-2572")))
+            .build();
+
+        EsQuery partition = BooleanQuery.builder()
+            .must(Must.of(outstanding))
+            .filter(Filter.builder()
+                .clauses(List.of(
+                    ExistsQuery.of("data.court"),
+                    RangeQuery.builder()
+                        .field("reference")
+                        .greaterThanOrEqual(1_600_000_000_000_000L)
+                        .lessThan(1_700_000_000_000_000L)
+                        .build()))
+                .build())
+            .build();
+        for (int i = 0; i < nesting; i++) {
+            partition = BooleanQuery.builder()
+                .must(Must.of(partition))
+                .build();
+        }
+        query = partition;
+    }
+
+    @Benchmark
+    public String count() {
+        return query.toQueryContext(1, 0).toString();
+    }
+
+    @Benchmark
+    public String firstPage() {
+        return query.toQueryContext(100, SORT_BY_REF, SOURCE_FIELDS).toString();
+    }
+
+    @Benchmark
+    public String nextPage() {
+        return query.toQueryContext(100, AFTER, SORT_BY_REF, SOURCE_FIELDS).toString();
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.hmcts.reform.migration.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.hmcts.reform.domain.model.DfjAreaCourtMapping;
+import uk.gov.hmcts.reform.domain.util.ResourceReader;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the DFJ area of a case's court, for the first and last courts in the mapping and for each court in
+ * turn, as cases from across the country come through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DfjAreaLookUpBenchmark {
+
+    private DfjAreaLookUpService lookUpService;
+    private String[] courtCodes;
+    private String firstCourt;
+    private String lastCourt;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        lookUpService = new DfjAreaLookUpService(objectMapper);
+        courtCodes = objectMapper.readTree(ResourceReader.readString("static_data/dfjAreaCourtMapping.json"))
+            .findValuesAsText("courtCode")
+            .toArray(String[]::new);
+        firstCourt = courtCodes[0];
+        lastCourt = courtCodes[courtCodes.length - 1];
+    }
+
+    @Benchmark
+    public DfjAreaCourtMapping firstCourt() {
+        return lookUpService.getDfjArea(firstCourt);
+    }
+
+    @Benchmark
+    public DfjAreaCourtMapping lastCourt() {
+        return lookUpService.getDfjArea(lastCourt);
+    }
+
+    @Benchmark
+    public DfjAreaCourtMapping eachCourt() {
+        next = (next + 1) % courtCodes.length;
+        return lookUpService.getDfjArea(courtCodes[next]);
+    }
+}
@@ -0,0 +1,118 @@
+package uk.gov.hmcts.reform.migration.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working out a case's TTL, for the states that take it from the case data. Cases at hearing take it from the
+ * latest of their orders, so grow in cost with the number of orders made.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TtlMigrationBenchmark {
+
+    private static final LocalDate FIRST_ORDER = LocalDate.of(2019, 1, 1);
+
+    @Param({"10", "100", "1000"})
+    public int orders;
+
+    private final DataMigrationServiceImpl dataMigrationService = new DataMigrationServiceImpl();
+
+    private CaseDetails openCase;
+    private CaseDetails closedCase;
+    private CaseDetails caseWithOrders;
+
+    @Setup
+    public void setUp() {
+        openCase = caseInState("Open", Map.of());
+        closedCase = caseInState("CLOSED", Map.of("closeCaseTabField", Map.of(
+            "date", "2023-06-01",
+            "showFullReason", "YES",
+            "fullReason", "FINAL_ORDER")));
+        caseWithOrders = caseInState("PREPARE_FOR_HEARING", Map.of(
+            "dateSubmitted", "2019-01-01",
+            "orderCollection", orderCollection(orders)));
+    }
+
+    @Benchmark
+    public Map<String, Object> openCase() {
+        return dataMigrationService.triggerTtlMigration(openCase);
+    }
+
+    @Benchmark
+    public Map<String, Object> closedCase() {
+        return dataMigrationService.triggerTtlMigration(closedCase);
+    }
+
+    @Benchmark
+    public Map<String, Object> caseWithOrders() {
+        return dataMigrationService.triggerTtlMigration(caseWithOrders);
+    }
+
+    private static CaseDetails caseInState(String state, Map<String, Object> fields) {
+        Map<String, Object> data = new HashMap<>(fields);
+        data.put("caseName", "Swansea City Council v Smith");
+        data.put("familyManCaseNumber", "SA23C50001");
+        data.put("court", Map.of("code", "344", "name", "Family Court sitting at Swansea"));
+        return CaseDetails.builder()
+            .id(1_650_000_000_000_000L)
+            .jurisdiction("PUBLICLAW")
+            .caseTypeId("CARE_SUPERVISION_EPO")
+            .state(state)
+            .createdDate(LocalDateTime.of(2023, 1, 1, 9, 0))
+            .data(data)
+            .build();
+    }
+
+    /**
+     * Orders in the shape CCD returns them, out of date order and with the approval date in each of the fields
+     * older orders used for it.
+     */
+    private static List<Map<String, Object>> orderCollection(int size) {
+        Random random = new Random(42);
+        List<Map<String, Object>> collection = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDate approved = FIRST_ORDER.plusDays(random.nextInt(1500));
+            Map<String, Object> order = new HashMap<>();
+            order.put("type", "C32A_CARE_ORDER");
+            order.put("title", "Care order");
+            order.put("children", "Alex Smith");
+            order.put("judgeAndLegalAdvisor", Map.of("judgeTitle", "HIS_HONOUR_JUDGE", "judgeLastName", "Jones"));
+            order.put("document", Map.of(
+                "document_url", "http://dm-store/documents/" + UUID.randomUUID(),
+                "document_filename", "c32a_care_order.pdf",
+                "document_binary_url", "http://dm-store/documents/" + UUID.randomUUID() + "/binary"));
+            switch (i % 3) {
+                case 0:
+                    order.put("approvalDateTime", approved.atTime(10, 30).toString());
+                    break;
+                case 1:
+                    order.put("approvalDate", approved.toString());
+                    break;
+                default:
+                    order.put("dateOfIssue", approved.format(DateTimeFormatter.ofPattern("d MMMM yyyy")));
+            }
+            collection.add(Map.of("id", UUID.randomUUID().toString(), "value", order));
+        }
+        return collection;
+    }
+}
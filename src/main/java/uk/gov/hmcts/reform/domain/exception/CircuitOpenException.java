@@ -0,0 +1,9 @@
+package uk.gov.hmcts.reform.domain.exception;
+
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+}
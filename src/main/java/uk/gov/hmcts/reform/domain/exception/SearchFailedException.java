@@ -0,0 +1,9 @@
+package uk.gov.hmcts.reform.domain.exception;
+
+public class SearchFailedException extends RuntimeException {
+
+    public SearchFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
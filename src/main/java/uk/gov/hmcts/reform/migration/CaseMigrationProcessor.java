@@ -1,30 +1,77 @@
 package uk.gov.hmcts.reform.migration;
 
-import lombok.Getter;
+import feign.FeignException;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
 import uk.gov.hmcts.reform.domain.exception.CaseMigrationSkippedException;
+import uk.gov.hmcts.reform.domain.exception.CircuitOpenException;
+import uk.gov.hmcts.reform.domain.exception.SearchFailedException;
+import uk.gov.hmcts.reform.migration.auth.TokenManager;
 import uk.gov.hmcts.reform.migration.ccd.CoreCaseDataService;
+import uk.gov.hmcts.reform.migration.configuration.SearchProperties;
+import uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter;
+import uk.gov.hmcts.reform.migration.processing.CaseOutcome;
+import uk.gov.hmcts.reform.migration.processing.CircuitBreaker;
+import uk.gov.hmcts.reform.migration.processing.FailureKind;
+import uk.gov.hmcts.reform.migration.processing.JournalState;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
+import uk.gov.hmcts.reform.migration.processing.MigrationRun;
+import uk.gov.hmcts.reform.migration.processing.OutcomeSnapshot;
+import uk.gov.hmcts.reform.migration.processing.PagePrefetcher;
+import uk.gov.hmcts.reform.migration.processing.ProgressReport;
+import uk.gov.hmcts.reform.migration.processing.RetryPolicy;
+import uk.gov.hmcts.reform.migration.processing.RetryScheduler;
+import uk.gov.hmcts.reform.migration.processing.ThrottleGate;
+import uk.gov.hmcts.reform.migration.processing.TokenBucketRateLimiter;
+import uk.gov.hmcts.reform.migration.query.BooleanQuery;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
+import uk.gov.hmcts.reform.migration.query.Must;
+import uk.gov.hmcts.reform.migration.query.MustNot;
+import uk.gov.hmcts.reform.migration.query.TermQuery;
 import uk.gov.hmcts.reform.migration.repository.ElasticSearchRepository;
-import uk.gov.hmcts.reform.migration.repository.IdamRepository;
+import uk.gov.hmcts.reform.migration.service.DataMigrationService;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Collectors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import javax.annotation.PreDestroy;
 
 import static java.math.RoundingMode.UP;
 import static java.time.LocalDateTime.now;
+import static java.util.Comparator.comparingDouble;
+import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
-import static org.springframework.util.ObjectUtils.isEmpty;
+import static java.util.stream.Collectors.toList;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.MIGRATED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.SKIPPED;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.UNKNOWN_STATE;
+import static uk.gov.hmcts.reform.migration.service.DataMigrationService.MIGRATION_ID_KEY;
 
 @Slf4j
 @Component
@@ -34,77 +81,169 @@ public class CaseMigrationProcessor {
     public static final String EVENT_DESCRIPTION = "Migrate Case";
     public static final String LOG_STRING = "-----------------------------------------";
 
+    // number of queued cases allowed per worker before the ES producer is made to wait
+    private static final int QUEUE_CAPACITY_PER_THREAD = 2;
+    // times a case is started again straight away after CCD reports it changed mid-event
+    private static final int MAX_CONFLICT_RETRIES = 3;
+    private static final int UNAUTHORIZED = 401;
+    // how often shutdown checks whether the cases in flight have finished
+    private static final long SHUTDOWN_POLL_MS = 50;
+    // case ids logged per outcome in the summary, the rest are in the run report
+    private static final int MAX_LOGGED_CASE_IDS = 20;
+    // longest wait between attempts at an ES page
+    private static final long MAX_SEARCH_BACKOFF_MS = 30_000;
+
+    // marker placed on the queue once per worker to signal that no more cases will be loaded
+    private static final Long END_OF_QUEUE = -1L;
+
+    // exact match on the id stamped by CoreCaseDataService.update, the analysed text field would match on its parts
+    private static final String MIGRATION_ID_FIELD = "data." + MIGRATION_ID_KEY + ".keyword";
+
     private final CoreCaseDataService coreCaseDataService;
     private final ElasticSearchRepository elasticSearchRepository;
-    private final IdamRepository idamRepository;
+    private final TokenManager tokens;
+    private final DataMigrationService<Map<String, Object>> dataMigrationService;
+    private final MigrationRun run;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final MigrationMetrics metrics;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final TokenBucketRateLimiter casesRateLimiter;
     private final int defaultQuerySize;
     private final int defaultThreadLimit;
-    private final int defaultThreadDelay;
-    private final int timeout;
     private final String migrationId;
     private final String caseType;
     private final String jurisdiction;
+    private final boolean virtualThreads;
+    private final int maxInFlight;
+    private final int esPartitions;
+    private final int esPrefetchPages;
+    private final RetryPolicy searchRetryPolicy;
+    private final boolean excludeMigrated;
+    private final long shutdownGraceMs;
 
-    private final ForkJoinPool threadPool;
+    private final ExecutorService threadPool;
+    private final ExecutorService esExecutor;
 
-    @Getter
-    private final List<Long> migratedCases = new ArrayList<>();
-    @Getter
-    private final List<Long> skippedCases = new ArrayList<>();
-    @Getter
-    private final List<Long> failedCases = new ArrayList<>();
+    private final ThrottleGate throttle = new ThrottleGate();
 
-    private final ConcurrentLinkedQueue<Long> casesToMigrate = new ConcurrentLinkedQueue<>();
+    // cases being worked on, to save if the run is stopped
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
 
-    private boolean finishedLoading = false;
+    private BlockingQueue<Long> casesToMigrate;
 
-    private LocalDateTime startTime = now();
+    private CountDownLatch workersFinished;
+
+    private RetryScheduler retries;
 
     private boolean retryFailures;
 
+    private volatile boolean running;
+
+    private volatile boolean stopping;
+
+    // whether loading stopped on an ES page that could not be fetched, rather than on the timeout
+    private volatile boolean searchFailed;
+
     //@Autowired
     public CaseMigrationProcessor(CoreCaseDataService coreCaseDataService,
                                   ElasticSearchRepository elasticSearchRepository,
-                                  IdamRepository idamRepository,
+                                  TokenManager tokens,
+                                  DataMigrationService<Map<String, Object>> dataMigrationService,
+                                  MigrationRun run,
+                                  RetryPolicy retryPolicy,
+                                  CircuitBreaker circuitBreaker,
+                                  MigrationMetrics metrics,
+                                  AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  @Qualifier("casesRateLimiter") TokenBucketRateLimiter casesRateLimiter,
+                                  SearchProperties search,
                                   @Value("${default.query.size}") int defaultQuerySize,
                                   @Value("${default.thread.limit:8}") int defaultThreadLimit,
-                                  @Value("${default.thread.delay:0}") int defaultThreadDelay,
                                   @Value("${case-migration.processing.id}") String migrationId,
                                   @Value("${migration.jurisdiction}") String jurisdiction,
                                   @Value("${migration.caseType}") String caseType,
                                   @Value("${case-migration.retry_failures}") boolean retryFailures,
-                                  @Value("${case-migration.timeout:7200}") int timeout) {
+                                  @Value("${case-migration.virtual_threads:false}") boolean virtualThreads,
+                                  @Value("${case-migration.max_in_flight:100}") int maxInFlight,
+                                  @Value("${case-migration.exclude_migrated:false}") boolean excludeMigrated,
+                                  @Value("${case-migration.shutdown.grace_ms:20000}") long shutdownGraceMs) {
         this.coreCaseDataService = coreCaseDataService;
         this.elasticSearchRepository = elasticSearchRepository;
-        this.idamRepository = idamRepository;
+        this.tokens = tokens;
+        this.dataMigrationService = dataMigrationService;
+        this.run = run;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.metrics = metrics;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.casesRateLimiter = casesRateLimiter;
         this.defaultQuerySize = defaultQuerySize;
         this.defaultThreadLimit = defaultThreadLimit;
-        this.defaultThreadDelay = defaultThreadDelay * 1000;
         this.migrationId = migrationId;
         this.jurisdiction = jurisdiction;
         this.caseType = caseType;
         this.retryFailures = retryFailures;
-        this.threadPool = new ForkJoinPool(defaultThreadLimit);
-        this.timeout = timeout;
+        this.virtualThreads = virtualThreads;
+        this.maxInFlight = maxInFlight;
+        if (search.getPartitions() > 1 && run.isJournalEnabled()) {
+            // partitions are loaded side by side, so there is no single point in the results to resume from
+            throw new IllegalArgumentException(
+                "case-migration.es.partitions cannot be above 1 while case-migration.journal.dir is set");
+        }
+        this.esPartitions = search.getPartitions();
+        this.esPrefetchPages = search.getPrefetchPages();
+        this.searchRetryPolicy = new RetryPolicy(search.getSearchAttempts(), search.getSearchBackoffMs(),
+            Math.max(search.getSearchBackoffMs(), MAX_SEARCH_BACKOFF_MS));
+        this.excludeMigrated = excludeMigrated;
+        this.shutdownGraceMs = shutdownGraceMs;
+        this.threadPool = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : new ForkJoinPool(defaultThreadLimit);
+        CustomizableThreadFactory esThreads = new CustomizableThreadFactory("es-producer-");
+        esThreads.setDaemon(true);
+        this.esExecutor = Executors.newCachedThreadPool(esThreads);
 
         setupProcessor(true);
+
+        metrics.gauge("migration.queue.depth", this, processor -> processor.casesToMigrate.size());
+        metrics.gauge("migration.workers.busy", inFlight, Set::size);
     }
 
     public void setupProcessor(boolean firstTry) {
-        log.info("Setting up migration tool, timeout: {}s, thread delay: {}s, num threads: {}",
-            this.timeout, this.defaultThreadDelay, this.defaultThreadLimit);
-
-        this.startTime = now();
-        this.getFailedCases().clear();
-        this.getMigratedCases().clear();
-        this.getSkippedCases().clear();
+        if (virtualThreads) {
+            log.info("Setting up migration tool, timeout: {}s, virtual threads, max in flight: {}",
+                run.getTimeout(), this.maxInFlight);
+        } else {
+            log.info("Setting up migration tool, timeout: {}s, num threads: {}",
+                run.getTimeout(), this.defaultThreadLimit);
+        }
 
-        this.finishedLoading = false;
+        run.reset();
 
-        String userToken =  idamRepository.generateUserToken();
+        // fresh queue per run so workers left over from a timed out run cannot take this run's cases
+        int concurrency = virtualThreads ? maxInFlight : defaultThreadLimit;
+        BlockingQueue<Long> queue = new LinkedBlockingQueue<>(concurrency * QUEUE_CAPACITY_PER_THREAD);
+        CountDownLatch finished = new CountDownLatch(consumers());
+        if (this.retries != null) {
+            this.retries.close();
+        }
+        RetryScheduler runRetries = new RetryScheduler(retryPolicy);
+        this.casesToMigrate = queue;
+        this.workersFinished = finished;
+        this.retries = runRetries;
+        // also requeues cases turned away by an open circuit breaker
+        esExecutor.execute(() -> runRetries.feed(queue));
+
+        // authenticate up front, so the first cases do not wait for it and bad credentials fail straight away
+        tokens.getUserToken();
         // Setup consumers
-        for (int i = 0; i < defaultThreadLimit; i++) {
-            threadPool.execute(() -> worker(caseType, jurisdiction, userToken));
+        if (virtualThreads) {
+            Semaphore inFlight = new Semaphore(maxInFlight);
+            threadPool.execute(() -> dispatcher(queue, runRetries, inFlight, finished));
+        } else {
+            for (int i = 0; i < defaultThreadLimit; i++) {
+                threadPool.execute(() -> worker(queue, runRetries, finished));
+            }
         }
 
         if (!firstTry) {
@@ -113,116 +252,598 @@ public class CaseMigrationProcessor {
     }
 
 
+    /**
+     * Number of threads taking from the queue, each of which needs its own end of queue marker.
+     */
+    private int consumers() {
+        return virtualThreads ? 1 : defaultThreadLimit;
+    }
+
     @SneakyThrows
-    private void worker(String caseType, String jurisdiction, String userToken) {
-        while (!finishedLoading || !casesToMigrate.isEmpty()) {
-            // check for content
-            Long caseId = casesToMigrate.poll();
-            if (!isEmpty(caseId)) {
-                // we've removed our caseId from the queue - now need to process it
-                try {
-                    coreCaseDataService.update(userToken,
-                        EVENT_ID,
-                        EVENT_SUMMARY,
-                        EVENT_DESCRIPTION,
-                        caseType,
-                        CaseDetails.builder()
-                            .id(caseId)
-                            .jurisdiction(jurisdiction)
-                            .build(),
-                        this.migrationId
-                    );
-                    log.info("Completed migrating case {}", caseId);
-                    migratedCases.add(caseId);
-
-                    // artificially slow down the migration tool if needed
-                    if (defaultThreadDelay > 0) {
-                        Thread.sleep(defaultThreadDelay);
-                    }
-                } catch (CaseMigrationSkippedException e) {
-                    log.info("Skipped migrating case {}, {}", caseId, e.getMessage());
-                    skippedCases.add(caseId);
-                } catch (Exception e) {
-                    log.error("Failed migrating case {}", caseId, e);
-                    failedCases.add(caseId);
+    private void worker(BlockingQueue<Long> queue, RetryScheduler retries, CountDownLatch finished) {
+        try {
+            while (true) {
+                // block until a case is available, no busy polling
+                Long caseId = queue.take();
+                if (END_OF_QUEUE.equals(caseId)) {
+                    return;
                 }
-            } else {
-                // polling for 1s as no caseId polled yet
-                Thread.sleep(1000);
+                // we've removed our caseId from the queue - now need to process it
+                migrateCase(caseId, retries);
             }
+        } finally {
+            finished.countDown();
         }
     }
 
+    /**
+     * Starts a virtual thread per queued case, with the semaphore capping how many are in flight at once.
+     */
     @SneakyThrows
-    public void migrateQuery(EsQuery query) {
-        requireNonNull(query);
-        requireNonNull(caseType);
-        requireNonNull(migrationId);
+    private void dispatcher(BlockingQueue<Long> queue, RetryScheduler retries, Semaphore inFlight,
+                            CountDownLatch finished) {
+        try {
+            while (true) {
+                Long caseId = queue.take();
+                if (END_OF_QUEUE.equals(caseId)) {
+                    // wait for the cases still in flight before reporting the queue as drained
+                    inFlight.acquire(maxInFlight);
+                    inFlight.release(maxInFlight);
+                    return;
+                }
+                inFlight.acquire();
+                threadPool.execute(() -> {
+                    try {
+                        migrateCase(caseId, retries);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            finished.countDown();
+        }
+    }
 
-        String userToken =  idamRepository.generateUserToken();
+    private void migrateCase(Long caseId, RetryScheduler retries) {
+        if (stopping) {
+            // shutting down, leave the case for the next run
+            run.leaveUnprocessed(caseId);
+            retries.settled(caseId);
+            return;
+        }
+        inFlight.add(caseId);
+        try {
+            attempt(caseId, retries);
+        } finally {
+            inFlight.remove(caseId);
+        }
+    }
 
-        // Get total cases to migrate
-        int total;
+    @SneakyThrows
+    private void attempt(Long caseId, RetryScheduler retries) {
+        // hold back while CCD is failing or throttling rather than working through the queue
+        if (!circuitBreaker.awaitPermission(remainingNanos(), NANOSECONDS)
+            || !throttle.awaitResume(remainingNanos(), NANOSECONDS)) {
+            log.error("Timed out waiting for CCD to recover, case {} was not processed", caseId);
+            run.leaveUnprocessed(caseId);
+            retries.settled(caseId);
+            return;
+        }
+        // every case counts towards the rate, whatever its outcome, but none is started once the run is over
+        if (!casesRateLimiter.tryAcquire(remainingNanos(), NANOSECONDS) || stopping) {
+            log.error("Run {} before case {} could be started, it was not processed",
+                stopping ? "stopped" : "timed out", caseId);
+            run.leaveUnprocessed(caseId);
+            // the run may still finish in time, but without this case
+            run.markIncomplete();
+            retries.settled(caseId);
+            return;
+        }
+        long startedAt = concurrencyLimiter.acquire();
+        boolean succeeded = false;
+        boolean retrying = false;
+        CaseOutcome outcome = FAILED;
+        String state = UNKNOWN_STATE;
+        Exception error = null;
         try {
-            total = elasticSearchRepository.searchResultsSize(userToken, this.caseType, query);
-            log.info("Found {} cases to migrate", total);
+            CaseDetails migrated = update(caseId);
+            succeeded = true;
+            if (migrated == null) {
+                // rejected by the migration once the full case was loaded
+                outcome = SKIPPED;
+            } else {
+                log.info("Completed migrating case {}", caseId);
+                outcome = MIGRATED;
+                state = migrated.getState();
+            }
+        } catch (CaseMigrationSkippedException e) {
+            succeeded = true;
+            log.info("Skipped migrating case {}, {}", caseId, e.getMessage());
+            outcome = SKIPPED;
+            error = e;
+        } catch (CircuitOpenException e) {
+            error = e;
+            // not the case's fault, so try it again without using up an attempt, as long as the circuit has not
+            // kept it from CCD more often than a throttled case may be put off
+            retrying = retries.defer(caseId, retryPolicy.backoffNanos(1));
+            if (retrying) {
+                log.info("Deferred case {}, {}", caseId, e.getMessage());
+            } else {
+                log.error("Failed migrating case {}, {} after {} deferrals", caseId, e.getMessage(),
+                    retryPolicy.getMaxDeferrals());
+            }
         } catch (Exception e) {
-            log.error("Could not determine the number of cases to search for due to {}",
-                e.getMessage(), e
-            );
-            log.info("Migration finished unsuccessfully.");
-            return;
+            error = e;
+            retrying = handleFailure(caseId, e, retries);
+        } finally {
+            concurrencyLimiter.release(startedAt, succeeded);
+            if (!retrying) {
+                long duration = System.nanoTime() - startedAt;
+                run.record(caseId, outcome, error, duration);
+                metrics.recordCase(outcome, state, duration);
+                retries.settled(caseId);
+            }
         }
+    }
 
-        // Setup ESQuery provider to fill up the queue
-        int pages = paginate(total);
-        log.debug("Found {} pages", pages);
-        String searchAfter = null;
-        boolean complete = false;
-        int page = 0;
-        while (!complete) {
+    /**
+     * Runs the migration event on the case, starting it again if the case changed before it could be submitted, or
+     * with a new token if CCD rejected the current one.
+     */
+    private CaseDetails update(Long caseId) {
+        String userToken = tokens.getUserToken();
+        boolean reauthenticated = false;
+        for (int conflicts = 0; ; ) {
             try {
-                List<CaseDetails> cases = elasticSearchRepository.search(userToken, caseType, query, defaultQuerySize,
-                    searchAfter);
-
-                if (cases.isEmpty()) {
-                    complete = true;
-                    continue;
+                return coreCaseDataService.update(userToken,
+                    EVENT_ID,
+                    EVENT_SUMMARY,
+                    EVENT_DESCRIPTION,
+                    caseType,
+                    CaseDetails.builder()
+                        .id(caseId)
+                        .jurisdiction(jurisdiction)
+                        .build(),
+                    this.migrationId
+                );
+            } catch (FeignException e) {
+                if (e.status() == UNAUTHORIZED && !reauthenticated) {
+                    log.warn("Token rejected while migrating case {}, trying again with a new one", caseId);
+                    userToken = tokens.refreshUserToken(userToken);
+                    reauthenticated = true;
+                } else if (conflicts < MAX_CONFLICT_RETRIES && FailureKind.of(e) == FailureKind.CONFLICT) {
+                    log.info("Case {} changed while being migrated, starting the event again", caseId);
+                    conflicts++;
+                } else {
+                    throw e;
                 }
+            }
+        }
+    }
 
-                searchAfter = cases.get(cases.size() - 1).getId().toString();
-
-                // add to queue
-                cases.stream()
-                    .map(CaseDetails::getId)
-                    .forEach(casesToMigrate::add);
+    /**
+     * Decides what happens to a case after a failed attempt, from what the failure says about trying again.
+     *
+     * @return true if the case will be tried again, false if it has failed for good
+     */
+    private boolean handleFailure(long caseId, Exception failure, RetryScheduler retries) {
+        FailureKind kind = FailureKind.of(failure);
+        if (kind == FailureKind.PERMANENT) {
+            log.error("Failed migrating case {}, not retrying", caseId, failure);
+            return false;
+        }
 
-                page++;
-            } catch (Exception e) {
-                log.error("Could not search for page {}", page, e);
+        if (kind == FailureKind.THROTTLED) {
+            // back every worker off, and retry the case once the pause is over without using up an attempt
+            long pause = FailureKind.retryAfter(failure)
+                .map(Duration::toNanos)
+                .orElseGet(() -> retryPolicy.backoffNanos(1));
+            throttle.pauseFor(pause);
+            if (retries.defer(caseId, pause)) {
+                log.warn("CCD is throttling, pausing for {}ms before retrying case {}", NANOSECONDS.toMillis(pause),
+                    caseId);
+                return true;
+            }
+            log.error("Failed migrating case {}, still throttled after {} deferrals", caseId,
+                retryPolicy.getMaxDeferrals(), failure);
+            return false;
+        } else {
+            long retryIn = retries.retry(caseId);
+            if (retryIn >= 0) {
+                log.warn("Failed migrating case {} on attempt {}, retrying in {}ms", caseId,
+                    retries.getFailures(caseId), retryIn, failure);
+                return true;
             }
         }
+        log.error("Failed migrating case {}", caseId, failure);
+        return false;
+    }
 
-        finishedLoading = true;
+    private JournalState startRun() {
+        this.running = true;
+        this.searchFailed = false;
+        return run.start();
+    }
 
-        // Finalise + wait for the queue to finish processing
-        boolean timedOut = !threadPool.awaitQuiescence(timeout, SECONDS);
+    /**
+     * Progress of the current run against its total, with the throughput over the last window and when the run
+     * is projected to complete.
+     */
+    public ProgressReport getProgress() {
+        return run.getProgress();
+    }
+
+    private long remainingNanos() {
+        return run.remainingNanos();
+    }
+
+    /**
+     * Hands a case to the workers, waiting while the queue is full so the producer cannot outrun them.
+     *
+     * @return false if the run timed out before the case could be queued
+     */
+    private boolean enqueue(Long caseId) throws InterruptedException {
+        if (stopping) {
+            return false;
+        }
+        retries.queued();
+        if (casesToMigrate.offer(caseId, remainingNanos(), NANOSECONDS)) {
+            return true;
+        }
+        retries.settled(caseId);
+        return false;
+    }
+
+    /**
+     * Signals end of input to every worker and waits for them to drain the queue, up to the run timeout.
+     *
+     * @return false if the run timed out or was stopped, leaving cases without an outcome
+     */
+    private boolean awaitWorkers(boolean loadedAllCases) throws InterruptedException {
+        boolean timedOut = !loadedAllCases;
+        // failed cases may still come back to the workers until every queued case has settled
+        if (!timedOut) {
+            timedOut = !retries.awaitSettled(remainingNanos(), NANOSECONDS);
+        }
+        long[] abandonedRetries = retries.close();
+
+        for (int i = 0; i < consumers() && !timedOut; i++) {
+            timedOut = !casesToMigrate.offer(END_OF_QUEUE, remainingNanos(), NANOSECONDS);
+        }
+
+        if (!timedOut) {
+            timedOut = !workersFinished.await(remainingNanos(), NANOSECONDS);
+        }
+
+        if (stopping) {
+            // the shutdown hook saves whatever is left and finishes the run
+            run.markIncomplete();
+            run.stopProgressLog();
+            return false;
+        }
         if (timedOut) {
-            log.error("Timed out after {} seconds", timeout);
+            List<Long> abandoned = new ArrayList<>();
+            casesToMigrate.drainTo(abandoned);
+            abandoned.removeIf(END_OF_QUEUE::equals);
+            log.error("{}, {} queued cases were not processed: {}",
+                searchFailed ? "Could not load every case" : "Timed out after " + run.getTimeout() + " seconds",
+                abandoned.size(), abandoned);
+            abandoned.forEach(run::leaveUnprocessed);
+            for (long caseId : abandonedRetries) {
+                log.error("Timed out before retrying case {}", caseId);
+                run.record(caseId, FAILED);
+                run.leaveUnprocessed(caseId);
+            }
+
+            // release any idle workers, busy ones will stop after their current case
+            for (int i = 0; i < consumers(); i++) {
+                casesToMigrate.offer(END_OF_QUEUE);
+            }
+            // keep the journal so the next run picks up where this one stopped
+            run.markIncomplete();
         }
+        // also keeps what an earlier pass of this run left, should the retry pass complete
+        run.saveRemainder(inFlight);
+        run.stopProgressLog();
+        return !timedOut;
+    }
 
-        publishStats(startTime);
+    /**
+     * Retries the failures of the pass that has just ended in a further pass, or finishes the run. A run stopped by
+     * shutdown is left for {@link #shutdown()} to finish, once the cases still in flight have settled.
+     */
+    private void endPass() {
+        synchronized (this) {
+            if (stopping) {
+                running = false;
+                return;
+            }
+        }
+        OutcomeSnapshot stats = getOutcomes();
+        publishStats(run.getStartTime(), stats);
 
-        if (retryFailures && this.getFailedCases().size() > 0) {
-            List<String> toRetry = new ArrayList<>(this.getFailedCases()).stream()
-                .map(Object::toString)
-                .collect(Collectors.toList());
+        if (retryFailures && stats.getFailedCount() > 0) {
+            List<String> toRetry = stats.getFailedCaseIdsForRetry();
 
             // reset migration tool, with no more retries allowed
             this.setupProcessor(false);
 
-            // migrate the failed cases
+            // migrate the failed cases, which ends the run
             this.migrateList(toRetry);
+        } else {
+            run.finish();
+            running = false;
+        }
+    }
+
+    /**
+     * Stops the run when the application shuts down, such as when Kubernetes sends the pod SIGTERM: no more cases
+     * are started, those in flight get the grace period to finish, and the rest are saved for the next run.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        boolean stoppedRun;
+        synchronized (this) {
+            // the run stays running until it is finished or left to this, so it cannot be missed on its way out
+            stopping = true;
+            stoppedRun = running;
+        }
+        if (stoppedRun) {
+            // keep the journal, as the run is finished before all of its cases can be
+            run.markIncomplete();
+            log.warn("Shutting down, waiting up to {}ms for {} cases in flight", shutdownGraceMs, inFlight.size());
+            takeQueued(retries.close());
+
+            // wait for the cases in flight, and for the producer to hand over any it had not queued
+            long graceEnd = System.nanoTime() + MILLISECONDS.toNanos(shutdownGraceMs);
+            while ((running || !inFlight.isEmpty()) && graceEnd - System.nanoTime() > 0) {
+                MILLISECONDS.sleep(SHUTDOWN_POLL_MS);
+            }
+            // a producer waiting on a full queue may have queued one more case after it was emptied
+            takeQueued(new long[0]);
+            run.saveRemainder(inFlight);
+        }
+        run.finish();
+        threadPool.shutdownNow();
+        esExecutor.shutdownNow();
+    }
+
+    /**
+     * Takes the cases off the queue and those waiting to be retried, to be saved rather than worked on.
+     */
+    private void takeQueued(long[] waitingRetries) {
+        List<Long> leftOver = new ArrayList<>();
+        casesToMigrate.drainTo(leftOver);
+        leftOver.removeIf(END_OF_QUEUE::equals);
+        Arrays.stream(waitingRetries).forEach(leftOver::add);
+        leftOver.forEach(run::leaveUnprocessed);
+        // they count as settled, so the run finishes without waiting for them
+        leftOver.forEach(retries::settled);
+    }
+
+    @SneakyThrows
+    public void migrateQuery(EsQuery configuredQuery) {
+        requireNonNull(configuredQuery);
+        requireNonNull(caseType);
+        requireNonNull(migrationId);
+        EsQuery query = outstanding(configuredQuery);
+
+        JournalState resumed = startRun();
+        run.setAllCasesKnown(false);
+        String userToken = tokens.getUserToken();
+
+        // Get total cases to migrate, overlapping the count with the first searches
+        Future<Integer> countRequest = esExecutor.submit(
+            () -> elasticSearchRepository.searchResultsSize(userToken, this.caseType, query));
+
+        boolean loadedAllCases;
+        if (esPartitions > 1) {
+            List<EsQuery> slices = partition(userToken, query);
+            int total = awaitTotal(countRequest);
+            if (total < 0) {
+                abandonRun();
+                return;
+            }
+            run.setTotal(casesToProcess(total, resumed));
+            checkPartitionTotals(userToken, slices, total);
+            loadedAllCases = requeueFailures(resumed) && loadInParallel(slices, resumed);
+        } else {
+            PagePrefetcher<CaseDetails> pages = prefetch(query, resumed.getWatermark());
+            int total = awaitTotal(countRequest);
+            if (total < 0) {
+                pages.close();
+                abandonRun();
+                return;
+            }
+            run.setTotal(casesToProcess(total, resumed));
+            log.debug("Found {} pages", paginate(total));
+            loadedAllCases = requeueFailures(resumed) && load(pages, resumed, true);
+        }
+        run.setAllCasesKnown(loadedAllCases);
+
+        // Finalise + wait for the queue to finish processing
+        awaitWorkers(loadedAllCases);
+        endPass();
+    }
+
+    /**
+     * Leaves out the cases already stamped with this migration's id when configured to, so the count and pages only
+     * cover the cases still to do.
+     */
+    private EsQuery outstanding(EsQuery query) {
+        if (!excludeMigrated) {
+            return query;
+        }
+        log.info("Excluding cases already migrated by {}", migrationId);
+        return BooleanQuery.builder()
+            .must(Must.of(query))
+            .mustNot(MustNot.of(TermQuery.of(MIGRATION_ID_FIELD, migrationId)))
+            .build();
+    }
+
+    /**
+     * Number of the cases found that this run has to process, leaving out those an earlier run already did unless
+     * the query left them out itself.
+     */
+    private long casesToProcess(int total, JournalState resumed) {
+        return excludeMigrated ? total : Math.max(0, total - resumed.getDoneCount());
+    }
+
+    private void abandonRun() {
+        running = false;
+        run.abandon();
+    }
+
+    /**
+     * Queues the cases an earlier run of the migration failed, which resuming from its watermark would pass over.
+     *
+     * @return false if the run timed out before they could all be queued
+     */
+    private boolean requeueFailures(JournalState resumed) throws InterruptedException {
+        for (long caseId : resumed.getFailedCaseIds()) {
+            if (!enqueue(caseId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the count of cases to migrate.
+     *
+     * @return the number of cases, or -1 if they could not be counted
+     */
+    private int awaitTotal(Future<Integer> countRequest) throws InterruptedException {
+        try {
+            int total = countRequest.get(remainingNanos(), NANOSECONDS);
+            log.info("Found {} cases to migrate", total);
+            return total;
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Could not determine the number of cases to search for due to {}",
+                cause.getMessage(), cause
+            );
+            log.info("Migration finished unsuccessfully.");
+            return -1;
+        }
+    }
+
+    /**
+     * Splits the query by case reference into the configured number of partitions, falling back to the whole
+     * query if the partitions cannot be worked out.
+     */
+    private List<EsQuery> partition(String userToken, EsQuery query) {
+        try {
+            List<EsQuery> slices = elasticSearchRepository.partitionByReference(userToken, caseType, query,
+                esPartitions);
+            log.info("Loading cases from {} partitions in parallel", slices.size());
+            return slices;
+        } catch (Exception e) {
+            log.error("Could not partition the query, loading cases from a single producer", e);
+            return List.of(query);
+        }
+    }
+
+    private void checkPartitionTotals(String userToken, List<EsQuery> slices, int total) {
+        if (slices.size() == 1) {
+            return;
+        }
+        try {
+            int partitionedTotal = 0;
+            for (EsQuery slice : slices) {
+                partitionedTotal += elasticSearchRepository.searchResultsSize(userToken, caseType, slice);
+            }
+            if (partitionedTotal != total) {
+                log.warn("Partitions contain {} cases but the query found {}, cases may have changed since",
+                    partitionedTotal, total);
+            }
+        } catch (Exception e) {
+            log.warn("Could not count the cases in each partition", e);
+        }
+    }
+
+    private boolean loadInParallel(List<EsQuery> slices, JournalState resumed)
+        throws InterruptedException, ExecutionException {
+        List<Future<Boolean>> loads = slices.stream()
+            .map(slice -> esExecutor.submit(() -> load(prefetch(slice, null), resumed, false)))
+            .collect(toList());
+        boolean loadedAllCases = true;
+        for (Future<Boolean> load : loads) {
+            loadedAllCases &= load.get();
+        }
+        return loadedAllCases;
+    }
+
+    private PagePrefetcher<CaseDetails> prefetch(EsQuery query, String startAfter) {
+        List<String> acceptanceFields = dataMigrationService.acceptanceFields();
+        // the current token for each page, as loading may outlast the one the run started with
+        return new PagePrefetcher<>(
+            searchAfter -> elasticSearchRepository.search(tokens.getUserToken(), caseType, query, defaultQuerySize,
+                searchAfter, acceptanceFields),
+            caseDetails -> caseDetails.getId().toString(),
+            startAfter,
+            esPrefetchPages,
+            searchRetryPolicy,
+            esExecutor);
+    }
+
+    /**
+     * Queues every case from the prefetched pages that an earlier run has not already done.
+     *
+     * @param trackWatermark whether the pages are the only ones loaded, in order, so completing them moves the
+     *                       journal's watermark on
+     * @return false if the run timed out or a page could not be fetched before all cases could be queued
+     */
+    private boolean load(PagePrefetcher<CaseDetails> pages, JournalState resumed, boolean trackWatermark)
+        throws InterruptedException {
+        // cases only carry the fields the acceptance check needs when the migration declares them
+        Predicate<CaseDetails> preFilter = dataMigrationService.acceptanceFields().isEmpty()
+            ? caseDetails -> true
+            : dataMigrationService.accepts();
+        try (pages) {
+            while (true) {
+                List<CaseDetails> cases;
+                try {
+                    cases = pages.next(remainingNanos(), NANOSECONDS);
+                } catch (SearchFailedException e) {
+                    // later pages follow on from the missing one, so the rest of the cases cannot be found
+                    log.error("Stopping the run, not every case to migrate could be loaded: {}", e.getMessage());
+                    searchFailed = true;
+                    return false;
+                }
+                if (cases == null) {
+                    return false;
+                }
+                if (cases.isEmpty()) {
+                    return true;
+                }
+
+                long[] toQueue = new long[cases.size()];
+                int queued = 0;
+                for (CaseDetails caseDetails : cases) {
+                    if (resumed.isDone(caseDetails.getId()) || resumed.isFailed(caseDetails.getId())) {
+                        log.debug("Case {} was already done or requeued from the journal", caseDetails.getId());
+                    } else if (!preFilter.test(caseDetails)) {
+                        log.info("Skipped migrating case {}, not accepted by migration {}", caseDetails.getId(),
+                            migrationId);
+                        run.record(caseDetails.getId(), SKIPPED);
+                    } else {
+                        toQueue[queued++] = caseDetails.getId();
+                    }
+                }
+                if (trackWatermark) {
+                    run.pageQueued(Arrays.copyOf(toQueue, queued),
+                        cases.get(cases.size() - 1).getId().toString());
+                }
+
+                // add to queue, blocking while the workers are saturated
+                for (int i = 0; i < queued; i++) {
+                    if (!enqueue(toQueue[i])) {
+                        return false;
+                    }
+                }
+            }
         }
     }
 
@@ -237,40 +858,55 @@ public class CaseMigrationProcessor {
             log.info("Found {} cases to migrate", caseIds.size());
         }
 
-        // Add them to the queue
-        casesToMigrate.addAll(caseIds.stream().map(Long::parseLong).collect(Collectors.toList()));
-        this.finishedLoading = true;
+        JournalState resumed = startRun();
 
-        // Wait for the threadpool to finish
-        boolean timedOut = !threadPool.awaitQuiescence(timeout, SECONDS);
-        if (timedOut) {
-            log.error("Timed out after {} seconds", timeout);
+        // the cases an earlier run failed go first, as they do when resuming a query, then the rest of the list
+        List<Long> toQueue = new ArrayList<>();
+        for (long id : resumed.getFailedCaseIds()) {
+            toQueue.add(id);
         }
+        for (String caseId : caseIds) {
+            long id = Long.parseLong(caseId);
+            if (resumed.isDone(id)) {
+                log.debug("Case {} was already done by an earlier run", id);
+            } else if (!resumed.isFailed(id)) {
+                toQueue.add(id);
+            }
+        }
+        run.setTotal(toQueue.size());
 
-        publishStats(startTime);
-
-        if (retryFailures && this.getFailedCases().size() > 0) {
-            List<String> toRetry = new ArrayList<>(this.getFailedCases()).stream()
-                .map(Object::toString)
-                .collect(Collectors.toList());
-
-            // reset migration tool, with no more retries allowed
-            this.setupProcessor(false);
-
-            // migrate the failed cases
-            this.migrateList(toRetry);
+        // Add them to the queue
+        boolean loadedAllCases = true;
+        for (int i = 0; i < toQueue.size(); i++) {
+            if (!enqueue(toQueue.get(i))) {
+                // the rest are left for the next run
+                toQueue.subList(i, toQueue.size()).forEach(run::leaveUnprocessed);
+                loadedAllCases = false;
+                break;
+            }
         }
+
+        // Wait for the threadpool to finish
+        awaitWorkers(loadedAllCases);
+        endPass();
     }
 
     private int paginate(int total) {
         return new BigDecimal(total).divide(new BigDecimal(defaultQuerySize), UP).intValue();
     }
 
-    private void publishStats(LocalDateTime startTime) {
+    /**
+     * Consistent view of the outcomes recorded so far in the current run.
+     */
+    public OutcomeSnapshot getOutcomes() {
+        return run.getOutcomes();
+    }
+
+    private void publishStats(LocalDateTime startTime, OutcomeSnapshot stats) {
         log.info(LOG_STRING);
         log.info(
             "FPLA Data migration completed: Total number of processed cases: {}",
-            getMigratedCases().size() + getFailedCases().size()
+            stats.getProcessedCount()
         );
 
         String[] task = {"Migrated", "migrations"};
@@ -278,29 +914,64 @@ public class CaseMigrationProcessor {
             task = new String[]{"Rolled back", "rollbacks"};
         }
 
-        if (getMigratedCases().isEmpty()) {
+        if (stats.getMigratedCount() == 0) {
             log.info("{} cases: NONE ", task[0]);
         } else {
             log.info(
                 "Total number of {} performed: {} ",
                 task[1],
-                getMigratedCases().size()
+                stats.getMigratedCount()
             );
         }
 
-        if (getSkippedCases().isEmpty()) {
+        if (stats.getSkippedCount() == 0) {
             log.info("Skipped cases: NONE ");
         } else {
-            log.info("Skipped count:{}, cases: {} ", getSkippedCases().size(), getSkippedCases());
+            log.info("Skipped count:{}, cases: {} ", stats.getSkippedCount(), sample(stats.getCaseIds(SKIPPED)));
         }
 
-        if (getFailedCases().isEmpty()) {
+        if (stats.getFailedCount() == 0) {
             log.info("Failed cases: NONE ");
         } else {
-            log.info("Failed count:{}, cases: {} ", getFailedCases().size(), getFailedCases());
+            log.info("Failed count:{}, cases: {} ", stats.getFailedCount(), sample(stats.getCaseIds(FAILED)));
+            run.getFailureTypes().entrySet().stream()
+                .sorted(comparingLong(type -> -type.getValue()))
+                .forEach(type -> log.info("Failed with {}: {}", type.getKey(), type.getValue()));
         }
 
+        if (run.getReportFile() != null) {
+            log.info("Outcome of every case is reported in {}", run.getReportFile());
+        }
+
+        if (circuitBreaker.isEnabled()) {
+            log.info("Circuit breaker is {}, opened {} times", circuitBreaker.getState(),
+                circuitBreaker.getTimesOpened());
+        }
+
+        // where the time per case went, to see which call to tune for
+        metrics.phaseTimers().stream()
+            .sorted(comparingDouble(timer -> -timer.totalTime(MILLISECONDS)))
+            .forEach(timer -> log.info("{} {} ({}): {} calls, mean {}ms, max {}ms, total {}s",
+                timer.getId().getTag("phase"),
+                timer.getId().getTag("outcome"),
+                timer.getId().getTag("state"),
+                timer.count(),
+                Math.round(timer.mean(MILLISECONDS)),
+                Math.round(timer.max(MILLISECONDS)),
+                Math.round(timer.totalTime(SECONDS))));
+
         log.info("Data migration start at {} and completed at {}", startTime, now());
     }
 
+    /**
+     * The first few of the case ids, so a run over many cases does not log them all.
+     */
+    private static String sample(long[] caseIds) {
+        if (caseIds.length <= MAX_LOGGED_CASE_IDS) {
+            return Arrays.toString(caseIds);
+        }
+        return Arrays.toString(Arrays.copyOf(caseIds, MAX_LOGGED_CASE_IDS))
+            + " and " + (caseIds.length - MAX_LOGGED_CASE_IDS) + " more";
+    }
+
 }
@@ -6,14 +6,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import uk.gov.hmcts.reform.migration.configuration.CaseIdListConfiguration;
+import uk.gov.hmcts.reform.migration.processing.RemainderFile;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
 import uk.gov.hmcts.reform.migration.service.DataMigrationService;
 
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @SpringBootApplication
+@ConfigurationPropertiesScan
 //@PropertySource("classpath:application.properties")
 public class CaseMigrationRunner implements CommandLineRunner {
 
@@ -25,6 +29,9 @@ public class CaseMigrationRunner implements CommandLineRunner {
     @Autowired
     private CaseIdListConfiguration caseIdListConfiguration;
 
+    @Autowired
+    private RemainderFile remainderFile;
+
     @Value("${case-migration.processing.id}") String migrationId;
 
     @Value("${case-migration.enabled}") boolean enabled;
@@ -44,11 +51,19 @@ public class CaseMigrationRunner implements CommandLineRunner {
             }
             log.info("Migration ID is {}", migrationId);
             dataMigrationService.validateMigrationId(migrationId);
-            if (useIdList) {
+            Optional<RemainderFile.Remainder> remainder = remainderFile.read(migrationId);
+            if (remainder.isPresent() && remainder.get().isComplete()) {
+                // Pick up the cases the last run was stopped before processing
+                log.info("Migrating {} cases left unprocessed by the last run", remainder.get().getCaseIds().size());
+                caseMigrationProcessor.migrateList(remainder.get().getCaseIds());
+            } else if (useIdList) {
                 // Do ID List Migration
                 List<String> caseIds = caseIdListConfiguration.getCaseIds(migrationId);
                 caseMigrationProcessor.migrateList(caseIds);
             } else {
+                if (remainder.isPresent()) {
+                    log.warn("The last run stopped before loading all of its cases, running the whole query again");
+                }
                 // Do ESQuery based migration
                 EsQuery query = dataMigrationService.getQuery(migrationId);
                 caseMigrationProcessor.migrateQuery(query);
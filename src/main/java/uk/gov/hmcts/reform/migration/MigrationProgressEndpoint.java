@@ -0,0 +1,42 @@
+package uk.gov.hmcts.reform.migration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.migration.processing.ProgressReport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint reporting the running migration's progress, so a run that will not finish inside
+ * {@code case-migration.timeout} can be spotted early and rescaled.
+ */
+@Component
+@Endpoint(id = "migrationprogress")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class MigrationProgressEndpoint {
+
+    private final CaseMigrationProcessor caseMigrationProcessor;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        ProgressReport report = caseMigrationProcessor.getProgress();
+        // plain values only, the JMX mapper has no support for java.time types
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("total", report.getTotal());
+        progress.put("processed", report.getProcessed());
+        progress.put("migrated", report.getMigrated());
+        progress.put("skipped", report.getSkipped());
+        progress.put("failed", report.getFailed());
+        progress.put("casesPerSecond", report.getCasesPerSecond());
+        progress.put("elapsedSeconds", report.getElapsed().toSeconds());
+        progress.put("remainingSeconds", report.getRemaining() == null ? null : report.getRemaining().toSeconds());
+        progress.put("projectedCompletion", report.getProjectedCompletion() == null
+            ? null : report.getProjectedCompletion().toString());
+        progress.put("withinTimeout", report.getWithinTimeout());
+        return progress;
+    }
+}
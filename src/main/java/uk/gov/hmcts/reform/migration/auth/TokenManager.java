@@ -0,0 +1,182 @@
+package uk.gov.hmcts.reform.migration.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+import uk.gov.hmcts.reform.migration.repository.IdamRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Holds the IDAM user token and the S2S token every call is made with, so a run is not cut short by them expiring.
+ *
+ * <p>Both are fetched once and handed out from memory, then replaced in the background shortly before the expiry
+ * in their JWT (or a default lifetime, when it cannot be read). Callers only wait for a token when there is none
+ * yet or the background refresh has failed to replace one that has expired. A token CCD rejects can be replaced
+ * straight away with {@link #refreshUserToken(String)}.
+ */
+@Slf4j
+@Component
+public class TokenManager {
+
+    private static final String BEARER = "Bearer ";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ManagedToken userToken;
+    private final ManagedToken serviceToken;
+    private final Duration refreshBeforeExpiry;
+    private final Duration defaultLifetime;
+    private final long checkInterval;
+
+    private ScheduledExecutorService refresher;
+
+    public TokenManager(IdamRepository idamRepository,
+                        AuthTokenGenerator serviceAuthTokenGenerator,
+                        @Value("${case-migration.token.refresh_before_expiry_s:600}") long refreshBeforeExpiry,
+                        @Value("${case-migration.token.default_lifetime_s:3600}") long defaultLifetime,
+                        @Value("${case-migration.token.check_interval_s:60}") long checkInterval) {
+        this.userToken = new ManagedToken("user", idamRepository::generateUserToken);
+        this.serviceToken = new ManagedToken("S2S", serviceAuthTokenGenerator::generate);
+        this.refreshBeforeExpiry = Duration.ofSeconds(refreshBeforeExpiry);
+        this.defaultLifetime = Duration.ofSeconds(defaultLifetime);
+        this.checkInterval = checkInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (checkInterval <= 0) {
+            return;
+        }
+        CustomizableThreadFactory threads = new CustomizableThreadFactory("token-refresh-");
+        threads.setDaemon(true);
+        refresher = Executors.newSingleThreadScheduledExecutor(threads);
+        refresher.scheduleWithFixedDelay(this::refreshDue, checkInterval, checkInterval, SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public String getUserToken() {
+        return userToken.get();
+    }
+
+    public String getServiceToken() {
+        return serviceToken.get();
+    }
+
+    /**
+     * Replaces the user token after it was rejected, unless another caller has already replaced it.
+     *
+     * @return the token to try again with
+     */
+    public String refreshUserToken(String rejected) {
+        return userToken.refresh(rejected);
+    }
+
+    /**
+     * Replaces the tokens that are close to expiring. A failure leaves the current token in use, to be tried again
+     * on the next check.
+     */
+    void refreshDue() {
+        userToken.refreshIfDue();
+        serviceToken.refreshIfDue();
+    }
+
+    /**
+     * When the token expires, from the {@code exp} claim of its JWT.
+     */
+    Instant expiryOf(String token, Instant now) {
+        String jwt = token.startsWith(BEARER) ? token.substring(BEARER.length()) : token;
+        String[] parts = jwt.split("\\.");
+        if (parts.length >= 2) {
+            try {
+                JsonNode expiry = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).path("exp");
+                if (expiry.canConvertToLong()) {
+                    return Instant.ofEpochSecond(expiry.asLong());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Could not read the expiry of a token, assuming it lasts {}", defaultLifetime);
+            }
+        }
+        return now.plus(defaultLifetime);
+    }
+
+    private final class ManagedToken {
+        private final String name;
+        private final Supplier<String> source;
+        private volatile Token current;
+
+        private ManagedToken(String name, Supplier<String> source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        String get() {
+            Token token = current;
+            if (token != null && token.expiresAt.isAfter(Instant.now())) {
+                return token.value;
+            }
+            return refresh(token == null ? null : token.value);
+        }
+
+        synchronized String refresh(String stale) {
+            Token token = current;
+            if (token != null && !token.value.equals(stale) && token.expiresAt.isAfter(Instant.now())) {
+                return token.value;
+            }
+            return fetch().value;
+        }
+
+        void refreshIfDue() {
+            try {
+                synchronized (this) {
+                    Token token = current;
+                    if (token != null && token.expiresAt.minus(refreshBeforeExpiry).isAfter(Instant.now())) {
+                        return;
+                    }
+                    fetch();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh the {} token, will try again in {}s", name, checkInterval, e);
+            }
+        }
+
+        private Token fetch() {
+            String value = source.get();
+            Instant now = Instant.now();
+            Token token = new Token(value, expiryOf(value, now));
+            current = token;
+            log.info("Fetched a new {} token, expiring at {}", name, token.expiresAt);
+            return token;
+        }
+    }
+
+    private static final class Token {
+        private final String value;
+        private final Instant expiresAt;
+
+        private Token(String value, Instant expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
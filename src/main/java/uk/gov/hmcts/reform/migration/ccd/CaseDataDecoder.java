@@ -0,0 +1,116 @@
+package uk.gov.hmcts.reform.migration.ccd;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import feign.Response;
+import feign.Util;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
+import uk.gov.hmcts.reform.ccd.client.model.StartEventResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Decodes the responses of the CCD client, optionally leaving the case data of started events to be parsed lazily.
+ *
+ * <p>With {@code case-migration.lazy_case_data} on, the {@code data} of a {@link StartEventResponse} is decoded
+ * into {@link LazyCaseData}: its fields are walked through once, but collections and complex fields are skipped
+ * over rather than built, so the megabytes of documents some cases hold are never turned into nested maps unless a
+ * migration reads them. Everything else, including the case details returned by searches and submissions, and
+ * every response when the setting is off, goes through the same decoders Spring Cloud OpenFeign gives a client by
+ * default, as this one takes their place for the CCD client.
+ */
+@Slf4j
+@Component
+public class CaseDataDecoder implements Decoder {
+
+    private static final String BODY = "caseDataDecoder.body";
+    private static final String FIELD_READER = "caseDataDecoder.fieldReader";
+
+    private final Decoder defaultDecoder;
+    private final ObjectReader startEventReader;
+
+    public CaseDataDecoder(ObjectMapper mapper, @Value("${case-migration.lazy_case_data:false}") boolean lazy,
+                           ObjectFactory<HttpMessageConverters> messageConverters,
+                           ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        this.defaultDecoder = new OptionalDecoder(new ResponseEntityDecoder(
+            new SpringDecoder(messageConverters, customizers)));
+        this.startEventReader = lazy
+            ? mapper.copy().addMixIn(CaseDetails.class, LazyDataMixIn.class)
+                .readerFor(StartEventResponse.class)
+                .withAttribute(FIELD_READER, mapper.readerFor(Object.class))
+            : null;
+        if (lazy) {
+            log.info("Case data of started events is parsed as it is read");
+        }
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        if (startEventReader == null || !StartEventResponse.class.equals(type)) {
+            return defaultDecoder.decode(response, type);
+        }
+        if (response.status() == 404 || response.status() == 204) {
+            return Util.emptyValueOf(type);
+        }
+        if (response.body() == null) {
+            return null;
+        }
+        try (InputStream body = response.body().asInputStream()) {
+            // the lazy fields are parsed from the body later on, so it is read whole
+            byte[] json = Util.toByteArray(body);
+            return startEventReader.withAttribute(BODY, json).readValue(json);
+        }
+    }
+
+    abstract static class LazyDataMixIn {
+        @JsonDeserialize(using = LazyCaseDataDeserializer.class)
+        private Map<String, Object> data;
+    }
+
+    static class LazyCaseDataDeserializer extends JsonDeserializer<Map<String, Object>> {
+
+        @Override
+        public Map<String, Object> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                return context.reportInputMismatch(this, "Expected the case data to be an object, got %s",
+                    parser.currentToken());
+            }
+            LazyCaseData data = new LazyCaseData((ObjectReader) context.getAttribute(FIELD_READER),
+                (byte[]) context.getAttribute(BODY));
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    long start = parser.getTokenLocation().getByteOffset();
+                    parser.skipChildren();
+                    // offsets into a single array, so they always fit an int
+                    data.putUnparsed(field, Math.toIntExact(start),
+                        Math.toIntExact(parser.getCurrentLocation().getByteOffset()));
+                } else {
+                    data.putParsed(field, context.readValue(parser, Object.class));
+                }
+            }
+            data.loaded();
+            return data;
+        }
+    }
+}
@@ -3,8 +3,8 @@ package uk.gov.hmcts.reform.migration.ccd;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
 import uk.gov.hmcts.reform.ccd.client.CoreCaseDataApi;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDataContent;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
@@ -14,10 +14,19 @@ import uk.gov.hmcts.reform.ccd.client.model.StartEventResponse;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
 import uk.gov.hmcts.reform.idam.client.models.UserDetails;
 import uk.gov.hmcts.reform.migration.auth.AuthUtil;
+import uk.gov.hmcts.reform.migration.auth.TokenManager;
+import uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter;
+import uk.gov.hmcts.reform.migration.processing.CircuitBreaker;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
+import uk.gov.hmcts.reform.migration.processing.TokenBucketRateLimiter;
 import uk.gov.hmcts.reform.migration.service.DataMigrationService;
 
 import java.util.Map;
 
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.MIGRATE;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.START_EVENT;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.SUBMIT_EVENT;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.USER_DETAILS;
 import static uk.gov.hmcts.reform.migration.service.DataMigrationService.MIGRATION_ID_KEY;
 
 @Slf4j
@@ -26,9 +35,17 @@ import static uk.gov.hmcts.reform.migration.service.DataMigrationService.MIGRATI
 public class CoreCaseDataService {
 
     private final IdamClient idamClient;
-    private final AuthTokenGenerator authTokenGenerator;
+    private final TokenManager tokens;
     private final CoreCaseDataApi coreCaseDataApi;
     private final DataMigrationService<Map<String, Object>> dataMigrationService;
+    @Qualifier("ccdCallRateLimiter")
+    private final TokenBucketRateLimiter ccdCallRateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final MigrationMetrics metrics;
+
+    // every case of a run is updated as the same user, so their details are only fetched again for a new token
+    private volatile Map.Entry<String, UserDetails> userDetailsByToken;
 
     public CaseDetails update(String authorisation, String eventId,
                               String eventSummary,
@@ -37,25 +54,28 @@ public class CoreCaseDataService {
                               CaseDetails caseDetails,
                               String migrationId) {
         String caseId = String.valueOf(caseDetails.getId());
-        UserDetails userDetails = idamClient.getUserDetails(AuthUtil.getBearerToken(authorisation));
+        UserDetails userDetails = getUserDetails(authorisation);
 
-        StartEventResponse startEventResponse = coreCaseDataApi.startEventForCaseWorker(
-            AuthUtil.getBearerToken(authorisation),
-            authTokenGenerator.generate(),
-            userDetails.getId(),
-            caseDetails.getJurisdiction(),
-            caseType,
-            caseId,
-            eventId);
+        ccdCallRateLimiter.acquire();
+        StartEventResponse startEventResponse = metrics.time(START_EVENT, () -> circuitBreaker.call(
+            () -> concurrencyLimiter.measure(() -> coreCaseDataApi.startEventForCaseWorker(
+                AuthUtil.getBearerToken(authorisation),
+                tokens.getServiceToken(),
+                userDetails.getId(),
+                caseDetails.getJurisdiction(),
+                caseType,
+                caseId,
+                eventId))));
 
         CaseDetails updatedCaseDetails = startEventResponse.getCaseDetails();
+        String state = updatedCaseDetails.getState();
 
         if (dataMigrationService.accepts().test(updatedCaseDetails)) {
             log.info("Initiating updating case {}", updatedCaseDetails.getId());
 
-            Map<String, Object> migratedFields = dataMigrationService.migrate(
+            Map<String, Object> migratedFields = metrics.time(MIGRATE, state, () -> dataMigrationService.migrate(
                 updatedCaseDetails,
-                migrationId);
+                migrationId));
             migratedFields.put(MIGRATION_ID_KEY, migrationId);
 
             CaseDataContent caseDataContent = CaseDataContent.builder()
@@ -68,26 +88,51 @@ public class CoreCaseDataService {
                         .build()
                 ).data(migratedFields)
                 .build();
-            return coreCaseDataApi.submitEventForCaseWorker(
-                AuthUtil.getBearerToken(authorisation),
-                authTokenGenerator.generate(),
-                userDetails.getId(),
-                updatedCaseDetails.getJurisdiction(),
-                caseType,
-                caseId,
-                true,
-                caseDataContent);
+
+            ccdCallRateLimiter.acquire();
+            return metrics.time(SUBMIT_EVENT, state, () -> circuitBreaker.call(
+                () -> concurrencyLimiter.measure(() -> coreCaseDataApi.submitEventForCaseWorker(
+                    AuthUtil.getBearerToken(authorisation),
+                    tokens.getServiceToken(),
+                    userDetails.getId(),
+                    updatedCaseDetails.getJurisdiction(),
+                    caseType,
+                    caseId,
+                    true,
+                    caseDataContent))));
         } else {
             log.info("For case id {}, court is {} and dfjArea is {}",
-                caseDetails.getId(),
-                caseDetails.getData().get("court"),
-                caseDetails.getData().get("dfjArea")
+                updatedCaseDetails.getId(),
+                updatedCaseDetails.getData().get("court"),
+                updatedCaseDetails.getData().get("dfjArea")
             );
             return null;
         }
     }
 
+    /**
+     * Details of the user the token belongs to, fetched from IDAM once per token. Workers starting together wait for
+     * the first of them to fetch the details rather than each fetching them.
+     */
+    private UserDetails getUserDetails(String authorisation) {
+        Map.Entry<String, UserDetails> cached = userDetailsByToken;
+        if (cached != null && cached.getKey().equals(authorisation)) {
+            return cached.getValue();
+        }
+        synchronized (this) {
+            cached = userDetailsByToken;
+            if (cached == null || !cached.getKey().equals(authorisation)) {
+                // a new token replaces the details cached for the one it was refreshed from
+                UserDetails userDetails = metrics.time(USER_DETAILS, () -> circuitBreaker.call(
+                    () -> idamClient.getUserDetails(AuthUtil.getBearerToken(authorisation))));
+                cached = Map.entry(authorisation, userDetails);
+                userDetailsByToken = cached;
+            }
+            return cached.getValue();
+        }
+    }
+
     public SearchResult searchCases(String userToken, String caseType, String query) {
-        return coreCaseDataApi.searchCases(userToken, authTokenGenerator.generate(), caseType, query);
+        return coreCaseDataApi.searchCases(userToken, tokens.getServiceToken(), caseType, query);
     }
 }
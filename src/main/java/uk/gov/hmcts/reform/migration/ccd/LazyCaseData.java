@@ -0,0 +1,148 @@
+package uk.gov.hmcts.reform.migration.ccd;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Case data whose collections and complex fields stay as the JSON CCD sent until they are read.
+ *
+ * <p>Simple fields are held as they are. Every other field only keeps where its JSON starts and ends in the response
+ * body, and is parsed into the usual maps and lists the first time it is got. Migrations mostly read two or three
+ * fields, so document collections and the like are never built at all. Iterating over the entries, as when the
+ * whole case data is copied or serialised, parses whatever is left first, so the map then behaves exactly like one
+ * read eagerly.
+ *
+ * <p>Unlike {@link Map#put} and {@link Map#remove}, replacing or removing a field that has not been parsed returns
+ * {@code null} rather than its value, which would only be parsed to be thrown away. Use {@link #get} first for the
+ * old value.
+ *
+ * <p>The whole response body is kept until every field has been parsed, and then let go. As it is held in one array,
+ * a body can be at most 2GB, well beyond anything CCD returns.
+ *
+ * <p>Not thread safe, like the map it stands in for.
+ */
+public class LazyCaseData extends AbstractMap<String, Object> {
+
+    private final ObjectReader reader;
+    private byte[] json;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private int unparsed;
+
+    LazyCaseData(ObjectReader reader, byte[] json) {
+        this.reader = reader;
+        this.json = json;
+    }
+
+    void putParsed(String key, Object value) {
+        fields.put(key, value);
+    }
+
+    void putUnparsed(String key, int start, int end) {
+        fields.put(key, new Unparsed(start, end));
+        unparsed++;
+    }
+
+    boolean isParsed(Object key) {
+        return !(fields.get(key) instanceof Unparsed);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = fields.get(key);
+        if (value instanceof Unparsed) {
+            value = parse((Unparsed) value);
+            fields.put((String) key, value);
+            oneLessToParse();
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return fields.containsKey(key);
+    }
+
+    /**
+     * Sets the field, returning its previous value, or {@code null} if that was never parsed.
+     */
+    @Override
+    public Object put(String key, Object value) {
+        return dropped(fields.put(key, value));
+    }
+
+    /**
+     * Removes the field, returning its value, or {@code null} if that was never parsed.
+     */
+    @Override
+    public Object remove(Object key) {
+        return dropped(fields.remove(key));
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (unparsed > 0) {
+            fields.replaceAll((key, value) -> value instanceof Unparsed ? parse((Unparsed) value) : value);
+            unparsed = 0;
+            json = null;
+        }
+        return fields.entrySet();
+    }
+
+    // a replaced or removed field that was never parsed is left unparsed, no longer needing the body
+    private Object dropped(Object previous) {
+        if (previous instanceof Unparsed) {
+            oneLessToParse();
+            return null;
+        }
+        return previous;
+    }
+
+    private void oneLessToParse() {
+        if (--unparsed == 0) {
+            // nothing left to parse from the body
+            json = null;
+        }
+    }
+
+    /**
+     * Lets go of the body straight away if every field was simple.
+     */
+    void loaded() {
+        if (unparsed == 0) {
+            json = null;
+        }
+    }
+
+    boolean holdsBody() {
+        return json != null;
+    }
+
+    private Object parse(Unparsed value) {
+        try {
+            return reader.readValue(json, value.start, value.end - value.start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Unparsed {
+        private final int start;
+        private final int end;
+
+        private Unparsed(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bounds and triggers of the adaptive concurrency limit, see
+ * {@link uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "case-migration.adaptive")
+public class AdaptiveConcurrencyProperties {
+
+    private boolean enabled;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 25;
+
+    // a CCD call slower than this backs the limit off as a failure would
+    private long latencyThresholdMs = 5000;
+
+    private double backoffRatio = 0.5;
+}
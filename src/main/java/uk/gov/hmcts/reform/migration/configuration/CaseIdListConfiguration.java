@@ -4,26 +4,55 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import uk.gov.hmcts.reform.domain.util.ConfigParser;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 @Configuration
 public class CaseIdListConfiguration {
 
     private final Map<String, List<String>> mapping;
+    private final Path file;
 
-    public CaseIdListConfiguration(@Value("${case-migration.case_id_list.mapping:}") String config) {
+    public CaseIdListConfiguration(@Value("${case-migration.case_id_list.mapping:}") String config,
+                                   @Value("${case-migration.case_id_list.file:}") String file) {
         if (isBlank(config)) {
             mapping = Collections.emptyMap();
         } else {
             mapping = ConfigParser.parseConfig(config);
         }
+        this.file = isBlank(file) ? null : Paths.get(file);
     }
 
+    /**
+     * Case ids to migrate, read from the file when one is configured, such as the failed ids saved by a run's report,
+     * otherwise from the mapping for the migration.
+     */
     public List<String> getCaseIds(String migrationId) {
+        if (file != null) {
+            return readFile();
+        }
         return this.mapping.getOrDefault(migrationId, List.of());
     }
+
+    // one case id per line, ignoring blank lines and # comments
+    private List<String> readFile() {
+        try {
+            return Files.readAllLines(file, UTF_8).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read case ids from " + file, e);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the breaker in front of CCD and IDAM, see
+ * {@link uk.gov.hmcts.reform.migration.processing.CircuitBreaker}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "case-migration.circuit")
+public class CircuitBreakerProperties {
+
+    private boolean enabled;
+
+    // consecutive failures that open the breaker
+    private int failureThreshold = 5;
+
+    // how long the breaker stays open before letting a probe call through
+    private long openMs = 30_000;
+}
@@ -0,0 +1,81 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.commons.httpclient.ApacheHttpClientConnectionManagerFactory;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The connection pool the Feign clients of CCD, IDAM and S2S share, which run on Apache HttpClient rather than
+ * opening a connection per call.
+ *
+ * <p>The pool is built the way Spring Cloud OpenFeign builds it from the {@code feign.httpclient.*} properties, but
+ * sized to the run's concurrency rather than to fixed limits, so raising the threads or the ES partitions does not
+ * leave workers queueing for a connection. This also closes connections left idle, which OpenFeign leaves open until
+ * their time to live is up, and publishes the pool as {@code httpcomponents.httpclient.pool.*} metrics tagged
+ * {@code httpclient=feign}.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfiguration {
+
+    // CCD, IDAM and S2S
+    private static final int ROUTES = 3;
+
+    /**
+     * Pools a connection to each host for every worker, or every case in flight on virtual threads, one for the
+     * producer of each ES partition and a spare, unless the limits are set.
+     */
+    @Bean
+    public HttpClientConnectionManager connectionManager(
+        ApacheHttpClientConnectionManagerFactory connectionManagerFactory,
+        FeignHttpClientProperties httpClientProperties,
+        SearchProperties search,
+        @Value("${default.thread.limit:8}") int defaultThreadLimit,
+        @Value("${case-migration.virtual_threads:false}") boolean virtualThreads,
+        @Value("${case-migration.max_in_flight:100}") int maxInFlight,
+        @Value("${case-migration.http.max_connections_per_route:0}") int maxConnectionsPerRoute,
+        @Value("${case-migration.http.max_connections:0}") int maxConnections) {
+
+        int workers = virtualThreads ? maxInFlight : defaultThreadLimit;
+        int perRoute = maxConnectionsPerRoute > 0
+            ? maxConnectionsPerRoute
+            : workers + Math.max(1, search.getPartitions()) + 1;
+        int total = maxConnections > 0 ? maxConnections : perRoute * ROUTES;
+        log.info("Pooling up to {} HTTP connections, {} to each host", total, perRoute);
+        return connectionManagerFactory.newConnectionManager(httpClientProperties.isDisableSslValidation(), total,
+            perRoute, httpClientProperties.getTimeToLive(), httpClientProperties.getTimeToLiveUnit(), null);
+    }
+
+    /**
+     * Closes connections left idle for longer than the timeout, before the server or a load balancer drops them.
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public IdleConnectionEvictor idleConnectionEvictor(
+        HttpClientConnectionManager connectionManager,
+        @Value("${case-migration.http.idle_timeout_s:30}") long idleTimeout) {
+
+        return new IdleConnectionEvictor(connectionManager, Math.max(1, idleTimeout / 2), SECONDS, idleTimeout,
+            SECONDS);
+    }
+
+    @Bean
+    public MeterBinder connectionPoolMetrics(HttpClientConnectionManager connectionManager) {
+        if (connectionManager instanceof PoolingHttpClientConnectionManager) {
+            return new PoolingHttpClientConnectionManagerMetricsBinder(
+                (PoolingHttpClientConnectionManager) connectionManager, "feign");
+        }
+        log.warn("HTTP connection manager {} is not a pool, its usage is not published",
+            connectionManager.getClass().getName());
+        return registry -> { };
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Rates the tool holds itself to, whatever the number of workers. A rate of 0 leaves it unlimited.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "case-migration.rate")
+public class RateLimitProperties {
+
+    private double casesPerSecond;
+
+    private double ccdCallsPerSecond;
+
+    // calls that may be made back to back after a quiet spell
+    private int burst = 1;
+}
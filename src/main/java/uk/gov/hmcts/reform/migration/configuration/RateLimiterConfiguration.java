@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.migration.processing.TokenBucketRateLimiter;
+
+@Slf4j
+@Configuration
+public class RateLimiterConfiguration {
+
+    @Bean
+    public TokenBucketRateLimiter casesRateLimiter(
+        RateLimitProperties rate,
+        @Value("${default.thread.limit:8}") int defaultThreadLimit,
+        @Value("${default.thread.delay:0}") int defaultThreadDelay,
+        @Value("${case-migration.virtual_threads:false}") boolean virtualThreads,
+        @Value("${case-migration.max_in_flight:100}") int maxInFlight) {
+
+        double casesPerSecond = rate.getCasesPerSecond();
+        if (casesPerSecond <= 0 && defaultThreadDelay > 0) {
+            // each worker used to sleep for the delay after a case, so keep the same overall rate
+            int workers = virtualThreads ? maxInFlight : defaultThreadLimit;
+            casesPerSecond = (double) workers / defaultThreadDelay;
+            log.info("default.thread.delay is deprecated, limiting {} {} to {} cases per second instead", workers,
+                virtualThreads ? "cases in flight" : "threads", casesPerSecond);
+        }
+        return new TokenBucketRateLimiter(casesPerSecond, rate.getBurst());
+    }
+
+    @Bean
+    public TokenBucketRateLimiter ccdCallRateLimiter(RateLimitProperties rate) {
+        return new TokenBucketRateLimiter(rate.getCcdCallsPerSecond(), rate.getBurst());
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter;
+import uk.gov.hmcts.reform.migration.processing.CircuitBreaker;
+
+/**
+ * What holds the workers back while CCD is failing or slowing down.
+ */
+@Configuration
+public class ResilienceConfiguration {
+
+    @Bean
+    public CircuitBreaker circuitBreaker(CircuitBreakerProperties circuit) {
+        return new CircuitBreaker(circuit.isEnabled(), circuit.getFailureThreshold(), circuit.getOpenMs());
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties adaptive) {
+        return new AdaptiveConcurrencyLimiter(adaptive.isEnabled(), adaptive.getMinLimit(), adaptive.getMaxLimit(),
+            adaptive.getLatencyThresholdMs(), adaptive.getBackoffRatio());
+    }
+}
@@ -0,0 +1,25 @@
+package uk.gov.hmcts.reform.migration.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How the cases to migrate are loaded from Elasticsearch.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "case-migration.es")
+public class SearchProperties {
+
+    // slices of the query loaded side by side, which cannot be resumed from a journal
+    private int partitions = 1;
+
+    // pages fetched ahead of the one being queued
+    private int prefetchPages = 2;
+
+    // attempts at a page before the run stops loading cases
+    private int searchAttempts = 5;
+
+    private long searchBackoffMs = 1000;
+}
@@ -0,0 +1,132 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many cases are migrated at once, adjusting the limit from the latency and failures of the CCD update.
+ *
+ * <p>Each healthy case grows the limit by {@code 1/limit}, roughly one extra case per round of calls, while a
+ * failure or a CCD call slower than the latency threshold multiplies it by the backoff ratio (AIMD). Cases started
+ * before the last cut cannot cut it again, so one bad spell only backs off once. The limit stays within the
+ * configured bounds; the number of workers (or {@code case-migration.max_in_flight}) remains a hard ceiling.
+ *
+ * <p>Latency is taken from the calls wrapped in {@link #measure}, the slowest of those a case made, so time spent
+ * waiting on the tool's own rate limiters or between the attempts of a case is not mistaken for CCD slowing down.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    // slowest measured call of the case each thread is working on, cases run start to end on one thread
+    private final ThreadLocal<long[]> slowestCall = ThreadLocal.withInitial(() -> new long[1]);
+
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(boolean enabled, int minLimit, int maxLimit, long latencyThresholdMs,
+                                      double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Adaptive concurrency limits must satisfy 1 <= min <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Adaptive concurrency backoff ratio must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.limit = minLimit;
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Waits until another case may start.
+     *
+     * @return the start time of the call, to be handed back to {@link #release(long, boolean)}
+     */
+    public long acquire() throws InterruptedException {
+        if (!enabled) {
+            return System.nanoTime();
+        }
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                permitReleased.await();
+            }
+            inFlight++;
+            slowestCall.get()[0] = 0;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes a call to CCD, timing it as part of the case the current thread acquired a slot for.
+     */
+    public <T> T measure(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        long startedAt = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            long[] slowest = slowestCall.get();
+            slowest[0] = Math.max(slowest[0], System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Records the result of a case started by {@link #acquire()} and frees its slot.
+     */
+    public void release(long startedAt, boolean succeeded) {
+        if (!enabled) {
+            return;
+        }
+        long latency = slowestCall.get()[0];
+        slowestCall.remove();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+            boolean healthy = succeeded && latency <= latencyThresholdNanos;
+            if (healthy) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            } else if (startedAt - lastDecrease > 0) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecrease = now;
+                log.info("Backing off concurrency from {} to {} after a {} call", (int) previous, (int) limit,
+                    succeeded ? "slow" : "failed");
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return enabled ? (int) limit : maxLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+public enum CaseOutcome {
+    MIGRATED,
+    SKIPPED,
+    FAILED
+}
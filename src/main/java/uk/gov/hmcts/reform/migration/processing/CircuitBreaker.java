@@ -0,0 +1,203 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.reform.domain.exception.CircuitOpenException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Stops calls to CCD and IDAM once they keep failing, rather than every worker waiting out the read timeout.
+ *
+ * <p>After {@code failure_threshold} consecutive failures (server errors, 429s and calls that got no response) the
+ * breaker opens: calls fail straight away with {@link CircuitOpenException} and {@link #awaitPermission} holds the
+ * workers back. Once {@code open_ms} has passed it lets a single probe call through (half open); a success closes
+ * it again, a failure reopens it for another period. Any response that is not a failure, such as a 404, shows the
+ * service is up and counts as a success.
+ *
+ * <p>Only one waiting worker is let on to make the probe; the rest keep waiting until it settles the state, rather
+ * than all being let go to have their calls turned away, each using up one of its case's deferrals. Should that
+ * worker make no call within {@code open_ms}, the next waiting worker is let on in its place.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+    // a worker has been let on to make the probe call, which has yet to be made
+    private boolean probeClaimed;
+    private long probeClaimExpiry;
+    private int timesOpened;
+
+    public CircuitBreaker(boolean enabled, int failureThreshold, long openMs) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Circuit breaker failure threshold must be at least 1");
+        }
+        this.enabled = enabled;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Makes the call unless the breaker is open, recording whether it succeeded.
+     *
+     * @throws CircuitOpenException if the breaker is open, or half open with its probe call already in flight
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        boolean probe = permit();
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed = isFailure(e);
+            throw e;
+        } finally {
+            record(probe, failed);
+        }
+    }
+
+    /**
+     * Waits while the breaker is open or probing, so workers do not take cases they cannot migrate.
+     *
+     * @return false if still waiting when the timeout passed
+     */
+    public boolean awaitPermission(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!enabled) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (state == State.OPEN && openUntil - now <= 0) {
+                    halfOpen();
+                }
+                if (state == State.CLOSED) {
+                    return true;
+                }
+                if (state == State.HALF_OPEN && !probing && (!probeClaimed || probeClaimExpiry - now <= 0)) {
+                    probeClaimed = true;
+                    probeClaimExpiry = now + openNanos;
+                    return true;
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+                // wake when the open period ends, the probe's claim lapses, or the probe settles the state
+                long wait = state == State.OPEN ? openUntil - now : probing ? nanos : probeClaimExpiry - now;
+                long waited = Math.min(nanos, wait);
+                nanos -= waited - stateChanged.awaitNanos(waited);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTimesOpened() {
+        lock.lock();
+        try {
+            return timesOpened;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean permit() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && openUntil - System.nanoTime() <= 0) {
+                halfOpen();
+            }
+            if (state == State.OPEN || state == State.HALF_OPEN && probing) {
+                throw new CircuitOpenException("Circuit breaker is " + state + ", not calling CCD");
+            }
+            if (state == State.HALF_OPEN) {
+                probing = true;
+                probeClaimed = false;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean probe, boolean failed) {
+        lock.lock();
+        try {
+            if (probe) {
+                probing = false;
+            }
+            if (!failed) {
+                consecutiveFailures = 0;
+                if (probe) {
+                    log.info("Circuit breaker probe succeeded, closing");
+                    state = State.CLOSED;
+                    stateChanged.signalAll();
+                }
+            } else if (probe || (++consecutiveFailures >= failureThreshold && state == State.CLOSED)) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openNanos;
+        consecutiveFailures = 0;
+        timesOpened++;
+        log.warn("Circuit breaker opened, pausing calls to CCD for {}ms", TimeUnit.NANOSECONDS.toMillis(openNanos));
+        stateChanged.signalAll();
+    }
+
+    private void halfOpen() {
+        state = State.HALF_OPEN;
+        probeClaimed = false;
+        log.info("Circuit breaker half open, probing CCD");
+        stateChanged.signalAll();
+    }
+
+    private static boolean isFailure(RuntimeException e) {
+        if (e instanceof FeignException) {
+            int status = ((FeignException) e).status();
+            // a negative status means no response was received, e.g. a timeout or refused connection
+            return status < 0 || status == 429 || status >= 500;
+        }
+        return false;
+    }
+}
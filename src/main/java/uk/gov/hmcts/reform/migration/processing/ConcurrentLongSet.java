@@ -0,0 +1,110 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.Arrays;
+
+/**
+ * Thread safe set of primitive longs, avoiding the boxing and resize races of a shared {@code List<Long>}.
+ *
+ * <p>Ids are spread over a fixed number of independently locked stripes, each a compressed {@link LongBitmap}, so
+ * concurrent writers only contend when their ids land in the same stripe. Ids are striped by their bitmap group
+ * rather than one by one, so neighbouring case references share a container and stay compressed.
+ */
+public class ConcurrentLongSet {
+
+    private static final int STRIPES = 64;
+    private static final int GROUP_BITS = 16;
+
+    private final LongBitmap[] stripes = new LongBitmap[STRIPES];
+
+    public ConcurrentLongSet() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongBitmap();
+        }
+    }
+
+    /**
+     * Adds the id to the set.
+     *
+     * @return true if the id was not already present
+     */
+    public boolean add(long value) {
+        LongBitmap stripe = stripeFor(value);
+        synchronized (stripe) {
+            return stripe.add(value);
+        }
+    }
+
+    public boolean contains(long value) {
+        LongBitmap stripe = stripeFor(value);
+        synchronized (stripe) {
+            return stripe.contains(value);
+        }
+    }
+
+    public int size() {
+        long size = 0;
+        for (LongBitmap stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return Math.toIntExact(size);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (LongBitmap stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Copies the ids out in ascending order. Callers needing a point in time view must stop writers first.
+     */
+    public long[] toArray() {
+        long[][] stripeValues = new long[STRIPES][];
+        int size = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (stripes[i]) {
+                stripeValues[i] = stripes[i].toArray();
+            }
+            size += stripeValues[i].length;
+        }
+        long[] result = new long[size];
+        int index = 0;
+        for (long[] values : stripeValues) {
+            System.arraycopy(values, 0, result, index, values.length);
+            index += values.length;
+        }
+        // each stripe is already in order, so this only interleaves them
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Approximate heap taken by the ids.
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (LongBitmap stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private LongBitmap stripeFor(long value) {
+        return stripes[(int) (mix(value >> GROUP_BITS) >>> 58)];
+    }
+
+    private static long mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import feign.FeignException;
+import uk.gov.hmcts.reform.domain.exception.CaseNotFoundException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+
+/**
+ * What a failed attempt at a case says about whether trying again can succeed.
+ */
+public enum FailureKind {
+    /**
+     * The case changed between starting and submitting the event (409), so starting again should succeed.
+     */
+    CONFLICT,
+    /**
+     * CCD is shedding load (429 or 503), so every worker should back off, not just this case.
+     */
+    THROTTLED,
+    /**
+     * The case cannot be migrated as it stands (400, 404, 422 or no such case), so trying again is wasted effort.
+     */
+    PERMANENT,
+    /**
+     * Anything else, which may well succeed if tried again later.
+     */
+    TRANSIENT;
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    public static FailureKind of(Throwable failure) {
+        if (failure instanceof CaseNotFoundException) {
+            return PERMANENT;
+        }
+        if (!(failure instanceof FeignException)) {
+            return TRANSIENT;
+        }
+        switch (((FeignException) failure).status()) {
+            case 409:
+                return CONFLICT;
+            case 429, 503:
+                return THROTTLED;
+            case 400, 404, 422:
+                return PERMANENT;
+            default:
+                return TRANSIENT;
+        }
+    }
+
+    /**
+     * How long the response asked callers to wait, from a Retry-After header in seconds or as an HTTP date.
+     */
+    public static Optional<Duration> retryAfter(Throwable failure) {
+        if (!(failure instanceof FeignException)) {
+            return Optional.empty();
+        }
+        Map<String, Collection<String>> headers = ((FeignException) failure).responseHeaders();
+        if (headers == null) {
+            return Optional.empty();
+        }
+        return headers.entrySet().stream()
+            .filter(header -> RETRY_AFTER.equalsIgnoreCase(header.getKey()))
+            .flatMap(header -> header.getValue().stream())
+            .findFirst()
+            .flatMap(FailureKind::parseRetryAfter);
+    }
+
+    private static Optional<Duration> parseRetryAfter(String value) {
+        String trimmed = value.trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed))));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(trimmed,
+                    RFC_1123_DATE_TIME));
+                return Optional.of(untilDate.isNegative() ? Duration.ZERO : untilDate);
+            } catch (DateTimeParseException unparseable) {
+                return Optional.empty();
+            }
+        }
+    }
+}
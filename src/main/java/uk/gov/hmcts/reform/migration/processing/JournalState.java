@@ -0,0 +1,61 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+/**
+ * What an earlier, unfinished run of a migration left in its journal, as read by {@link MigrationJournal#open}.
+ */
+public class JournalState {
+
+    private static final JournalState EMPTY = new JournalState(null, new ConcurrentLongSet(),
+        new ConcurrentLongSet());
+
+    private final String watermark;
+    private final ConcurrentLongSet done;
+    private final ConcurrentLongSet failed;
+
+    JournalState(String watermark, ConcurrentLongSet done, ConcurrentLongSet failed) {
+        this.watermark = watermark;
+        this.done = done;
+        this.failed = failed;
+    }
+
+    public static JournalState empty() {
+        return EMPTY;
+    }
+
+    /**
+     * The search_after value every case up to and including which has an outcome, or null to start from the top.
+     */
+    public String getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Whether the case was migrated or skipped by an earlier run, and so needs no further work.
+     */
+    public boolean isDone(long caseId) {
+        return done.contains(caseId);
+    }
+
+    public int getDoneCount() {
+        return done.size();
+    }
+
+    /**
+     * Cases whose last outcome was a failure, which resuming from the watermark would otherwise pass over.
+     */
+    public long[] getFailedCaseIds() {
+        return failed.toArray();
+    }
+
+    public int getFailedCount() {
+        return failed.size();
+    }
+
+    public boolean isFailed(long caseId) {
+        return failed.contains(caseId);
+    }
+
+    public boolean isEmpty() {
+        return watermark == null && done.size() == 0 && failed.size() == 0;
+    }
+}
@@ -0,0 +1,493 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed set of longs, laid out like a Roaring bitmap where the ids are dense enough for it: ids are grouped by
+ * their high 48 bits, and the low 16 bits of a group with enough ids are held in a container sized to how dense the
+ * group is.
+ *
+ * <p>A container keeps its low bits in a sorted {@code char[]}, two bytes an id, and becomes an 8KB bitset once it
+ * holds more than {@value #MAX_ARRAY_CARDINALITY} ids, at which point that is the smaller of the two. Case references
+ * are timestamp-like, though, so the ids of a run are often thousands apart and most groups hold a single id, where a
+ * container of its own would cost over 50 bytes. Ids are only given a container once their group holds
+ * {@value #MIN_CONTAINER_CARDINALITY} of them; until then they are kept loose, in an open addressing table of plain
+ * longs that takes 11 to 21 bytes an id. Groups are looked up by hash rather than kept in order, so ids cost the same
+ * to add whatever order they arrive in.
+ *
+ * <p>The size is kept as ids are added. Ids are visited in ascending order, which sorts the loose ids and the groups,
+ * so is meant for the end of a run rather than the hot path.
+ *
+ * <p>Not thread safe; {@link ConcurrentLongSet} stripes these behind locks.
+ */
+public class LongBitmap {
+
+    private static final int MAX_ARRAY_CARDINALITY = 4096;
+    private static final int MIN_CONTAINER_CARDINALITY = 8;
+    private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_ARRAY_SIZE = 4;
+
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+
+    // ids of the groups without a container, by hash with linear probing, 0 marking a free slot
+    private long[] loose = new long[INITIAL_CAPACITY];
+    private int looseCount;
+    private boolean looseZero;
+
+    // high 48 bits of each group with a container, by hash with linear probing, and its container, null if free
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Container[] containers = new Container[INITIAL_CAPACITY];
+    private int containerCount;
+
+    private long size;
+
+    /**
+     * Adds the id to the set.
+     *
+     * @return true if the id was not already present
+     */
+    public boolean add(long value) {
+        long key = value >> 16;
+        int slot = slotOf(key);
+        Container container = containers[slot];
+        if (container == null) {
+            if (!addLoose(value)) {
+                return false;
+            }
+        } else {
+            if (!container.add((char) value)) {
+                return false;
+            }
+            if (container.isFull()) {
+                containers[slot] = container.toBitmap();
+            }
+        }
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        Container container = containers[slotOf(value >> 16)];
+        return container == null ? containsLoose(value) : container.contains((char) value);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        loose = new long[INITIAL_CAPACITY];
+        looseCount = 0;
+        looseZero = false;
+        keys = new long[INITIAL_CAPACITY];
+        containers = new Container[INITIAL_CAPACITY];
+        containerCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Passes each id to the action, in ascending order.
+     */
+    public void forEach(LongConsumer action) {
+        long[] looseValues = looseValues();
+        Arrays.sort(looseValues);
+        long[] groups = groupKeys();
+        Arrays.sort(groups);
+
+        // a group's ids are either all loose or all in its container, so the two only interleave between groups
+        int next = 0;
+        for (long key : groups) {
+            while (next < looseValues.length && looseValues[next] >> 16 < key) {
+                action.accept(looseValues[next++]);
+            }
+            containers[slotOf(key)].forEach(key << 16, action);
+        }
+        while (next < looseValues.length) {
+            action.accept(looseValues[next++]);
+        }
+    }
+
+    /**
+     * Copies the ids out in ascending order.
+     */
+    public long[] toArray() {
+        long[] values = new long[Math.toIntExact(size)];
+        int[] index = {0};
+        forEach(value -> values[index[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Writes the set in its compressed form, to be read back by {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        long[] groups = groupKeys();
+        Arrays.sort(groups);
+        out.writeInt(groups.length);
+        for (long key : groups) {
+            out.writeLong(key);
+            containers[slotOf(key)].writeTo(out);
+        }
+        long[] looseValues = looseValues();
+        out.writeInt(looseValues.length);
+        for (long value : looseValues) {
+            out.writeLong(value);
+        }
+    }
+
+    public static LongBitmap readFrom(DataInput in) throws IOException {
+        LongBitmap bitmap = new LongBitmap();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long key = in.readLong();
+            Container container = in.readByte() == BITMAP
+                ? BitmapContainer.readFrom(in)
+                : ArrayContainer.readFrom(in);
+            bitmap.putContainer(key, container);
+            bitmap.size += container.cardinality();
+        }
+        int looseCount = in.readInt();
+        for (int i = 0; i < looseCount; i++) {
+            bitmap.add(in.readLong());
+        }
+        return bitmap;
+    }
+
+    /**
+     * Approximate heap taken by the ids.
+     */
+    public long sizeInBytes() {
+        long bytes = (long) loose.length * Long.BYTES + (long) keys.length * (Long.BYTES + 4);
+        for (Container container : containers) {
+            if (container != null) {
+                bytes += container.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private boolean addLoose(long value) {
+        if (value == 0) {
+            if (looseZero) {
+                return false;
+            }
+            looseZero = true;
+            return true;
+        }
+        int mask = loose.length - 1;
+        int slot = (int) mix(value) & mask;
+        while (loose[slot] != 0) {
+            if (loose[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        loose[slot] = value;
+        looseCount++;
+        if (looseCount * 4L > loose.length * 3L) {
+            promoteDenseGroups();
+        }
+        return true;
+    }
+
+    private boolean containsLoose(long value) {
+        if (value == 0) {
+            return looseZero;
+        }
+        int mask = loose.length - 1;
+        int slot = (int) mix(value) & mask;
+        while (loose[slot] != 0) {
+            if (loose[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the loose ids of each group with enough of them into a container, then rebuilds the loose table with
+     * room for the rest to double, which keeps the sorting this takes to a constant share of each add.
+     */
+    private void promoteDenseGroups() {
+        long[] values = looseValues();
+        Arrays.sort(values);
+        loose = null;
+        looseCount = 0;
+        looseZero = false;
+
+        int stillLoose = 0;
+        for (int start = 0, end; start < values.length; start = end) {
+            long key = values[start] >> 16;
+            end = start + 1;
+            while (end < values.length && values[end] >> 16 == key) {
+                end++;
+            }
+            if (end - start >= MIN_CONTAINER_CARDINALITY) {
+                putContainer(key, ArrayContainer.of(values, start, end));
+            } else {
+                // kept at the front of the array for re-adding below
+                System.arraycopy(values, start, values, stillLoose, end - start);
+                stillLoose += end - start;
+            }
+        }
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < stillLoose * 2L) {
+            capacity *= 2;
+        }
+        loose = new long[capacity];
+        for (int i = 0; i < stillLoose; i++) {
+            addLoose(values[i]);
+        }
+    }
+
+    private long[] looseValues() {
+        long[] values = new long[looseCount + (looseZero ? 1 : 0)];
+        int index = 0;
+        for (long value : loose) {
+            if (value != 0) {
+                values[index++] = value;
+            }
+        }
+        if (looseZero) {
+            values[index] = 0;
+        }
+        return values;
+    }
+
+    private long[] groupKeys() {
+        long[] groups = new long[containerCount];
+        int index = 0;
+        for (int slot = 0; slot < containers.length; slot++) {
+            if (containers[slot] != null) {
+                groups[index++] = keys[slot];
+            }
+        }
+        return groups;
+    }
+
+    // slot of the group's container, or the free slot it would go in
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (containers[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void putContainer(long key, Container container) {
+        if ((containerCount + 1) * 4L > keys.length * 3L) {
+            long[] oldKeys = keys;
+            Container[] oldContainers = containers;
+            keys = new long[oldKeys.length * 2];
+            containers = new Container[oldKeys.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldContainers[slot] != null) {
+                    int newSlot = slotOf(oldKeys[slot]);
+                    keys[newSlot] = oldKeys[slot];
+                    containers[newSlot] = oldContainers[slot];
+                }
+            }
+        }
+        int slot = slotOf(key);
+        keys[slot] = key;
+        containers[slot] = container.isFull() ? container.toBitmap() : container;
+        containerCount++;
+    }
+
+    private static long mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private interface Container {
+        boolean add(char low);
+
+        boolean contains(char low);
+
+        int cardinality();
+
+        // whether the container should now be a bitmap
+        boolean isFull();
+
+        Container toBitmap();
+
+        void forEach(long high, LongConsumer action);
+
+        void writeTo(DataOutput out) throws IOException;
+
+        long sizeInBytes();
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[INITIAL_ARRAY_SIZE];
+        private int cardinality;
+
+        // the container of a group's ids, given in ascending order
+        static ArrayContainer of(long[] ids, int from, int to) {
+            ArrayContainer container = new ArrayContainer();
+            container.cardinality = to - from;
+            container.values = new char[Math.max(container.cardinality, INITIAL_ARRAY_SIZE)];
+            for (int i = from; i < to; i++) {
+                container.values[i - from] = (char) ids[i];
+            }
+            return container;
+        }
+
+        @Override
+        public boolean add(char low) {
+            // appending skips the search when a group's ids arrive in ascending order
+            int index = cardinality > 0 && values[cardinality - 1] < low
+                ? -cardinality - 1
+                : Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, MAX_ARRAY_CARDINALITY + 1));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean isFull() {
+            return cardinality > MAX_ARRAY_CARDINALITY;
+        }
+
+        @Override
+        public Container toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+
+        @Override
+        public void forEach(long high, LongConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(ARRAY);
+            out.writeInt(cardinality);
+            for (int i = 0; i < cardinality; i++) {
+                out.writeChar(values[i]);
+            }
+        }
+
+        static ArrayContainer readFrom(DataInput in) throws IOException {
+            ArrayContainer container = new ArrayContainer();
+            container.cardinality = in.readInt();
+            container.values = new char[Math.max(container.cardinality, INITIAL_ARRAY_SIZE)];
+            for (int i = 0; i < container.cardinality; i++) {
+                container.values[i] = in.readChar();
+            }
+            return container;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) values.length * Character.BYTES + 32;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        @Override
+        public boolean add(char low) {
+            long bit = 1L << low;
+            int word = low >>> 6;
+            if ((words[word] & bit) != 0) {
+                return false;
+            }
+            words[word] |= bit;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean isFull() {
+            return false;
+        }
+
+        @Override
+        public Container toBitmap() {
+            return this;
+        }
+
+        @Override
+        public void forEach(long high, LongConsumer action) {
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    action.accept(high | (long) word << 6 | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(BITMAP);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+
+        static BitmapContainer readFrom(DataInput in) throws IOException {
+            BitmapContainer container = new BitmapContainer();
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                container.words[word] = in.readLong();
+                container.cardinality += Long.bitCount(container.words[word]);
+            }
+            return container;
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return (long) BITMAP_WORDS * Long.BYTES + 32;
+        }
+    }
+}
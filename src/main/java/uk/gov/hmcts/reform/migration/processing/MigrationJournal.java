@@ -0,0 +1,274 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append only journal of a migration's progress, so a run cut short by the timeout can be resumed by the next one.
+ *
+ * <p>Each line is either the outcome of a case ({@code M}igrated, {@code S}kipped or {@code F}ailed followed by the
+ * case id) or a {@code W}atermark: the search_after value up to which every queued case has an outcome. Records are
+ * buffered and made durable by one fsync per sync interval (group commit), so workers never wait on the disk; a
+ * crash loses at most the last interval, whose cases are simply migrated again.
+ *
+ * <p>The journal is kept per migration id in {@code case-migration.journal.dir}, and removed once a run gets
+ * through all of its cases. No directory disables it. As each run is a new pod, the directory has to be on a
+ * persistent volume, and the application will not start if it cannot be written to.
+ */
+@Slf4j
+@Component
+public class MigrationJournal {
+
+    private final Path directory;
+    private final long syncIntervalMs;
+
+    private final Deque<Page> pages = new ArrayDeque<>();
+    private final Map<Long, Page> pageOfCase = new HashMap<>();
+
+    private Path file;
+    private FileChannel channel;
+    private BufferedWriter writer;
+    private ScheduledExecutorService syncer;
+    private boolean dirty;
+    private boolean incomplete;
+
+    public MigrationJournal(@Value("${case-migration.journal.dir:}") String directory,
+                            @Value("${case-migration.journal.sync_interval_ms:1000}") long syncIntervalMs) {
+        this.directory = StateDirectory.writable("case-migration.journal.dir", directory);
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Reads what earlier runs of the migration recorded and starts appending to the journal, if not already open.
+     */
+    public synchronized JournalState open(String migrationId) {
+        if (!isEnabled()) {
+            return JournalState.empty();
+        }
+        Path journal = directory.resolve(migrationId + ".journal");
+        if (journal.equals(file)) {
+            return JournalState.empty();
+        }
+        try {
+            Files.createDirectories(directory);
+            JournalState state = read(journal);
+            FileOutputStream out = new FileOutputStream(journal.toFile(), true);
+            this.file = journal;
+            this.channel = out.getChannel();
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+            this.incomplete = false;
+            if (endsWithTornEntry(journal)) {
+                // start on a fresh line so the next entry is not joined onto the torn one
+                writer.newLine();
+            }
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::sync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+            if (!state.isEmpty()) {
+                log.info("Resuming migration {} from its journal, {} cases already done, {} failed, watermark {}",
+                    migrationId, state.getDoneCount(), state.getFailedCount(), state.getWatermark());
+            }
+            return state;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open migration journal " + journal, e);
+        }
+    }
+
+    /**
+     * Registers a page of cases about to be queued, in search_after order. Once all of them and every earlier page
+     * have an outcome the watermark moves on to {@code lastReference}.
+     */
+    public synchronized void pageQueued(long[] caseIds, String lastReference) {
+        if (writer == null) {
+            return;
+        }
+        Page page = new Page(lastReference, caseIds.length);
+        pages.addLast(page);
+        for (long caseId : caseIds) {
+            pageOfCase.put(caseId, page);
+        }
+        advanceWatermark();
+    }
+
+    public synchronized void record(long caseId, CaseOutcome outcome) {
+        if (writer == null) {
+            return;
+        }
+        append(outcome.name().charAt(0) + " " + caseId);
+        Page page = pageOfCase.remove(caseId);
+        if (page != null) {
+            page.remaining--;
+            advanceWatermark();
+        }
+    }
+
+    /**
+     * Notes that the run stopped before getting through all of its cases, so the journal is kept for the next one.
+     */
+    public synchronized void markIncomplete() {
+        this.incomplete = true;
+    }
+
+    /**
+     * Makes everything recorded so far durable and closes the journal, removing it if the run completed.
+     */
+    public synchronized void finish() {
+        if (writer == null) {
+            return;
+        }
+        syncer.shutdownNow();
+        sync();
+        try {
+            writer.close();
+            if (!incomplete) {
+                Files.deleteIfExists(file);
+                log.info("Migration completed, removed journal {}", file);
+            }
+        } catch (IOException e) {
+            log.error("Could not close migration journal {}", file, e);
+        } finally {
+            writer = null;
+            channel = null;
+            file = null;
+            pages.clear();
+            pageOfCase.clear();
+        }
+    }
+
+    /**
+     * Flushes buffered records and forces them to disk. Only the flush holds the lock, so workers keep recording
+     * while the fsync is in progress and their records are picked up by the next one.
+     */
+    void sync() {
+        FileChannel toForce;
+        synchronized (this) {
+            if (writer == null || !dirty) {
+                return;
+            }
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                log.error("Could not write migration journal {}", file, e);
+                return;
+            }
+            dirty = false;
+            toForce = channel;
+        }
+        try {
+            toForce.force(false);
+        } catch (IOException e) {
+            log.error("Could not sync migration journal", e);
+        }
+    }
+
+    private void advanceWatermark() {
+        String watermark = null;
+        while (!pages.isEmpty() && pages.peekFirst().remaining == 0) {
+            watermark = pages.removeFirst().lastReference;
+        }
+        if (watermark != null) {
+            append("W " + watermark);
+        }
+    }
+
+    private void append(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            dirty = true;
+        } catch (IOException e) {
+            log.error("Could not write migration journal {}", file, e);
+        }
+    }
+
+    private static boolean endsWithTornEntry(Path journal) throws IOException {
+        try (FileChannel file = FileChannel.open(journal)) {
+            if (file.size() == 0) {
+                return false;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            file.read(last, file.size() - 1);
+            return last.get(0) != '\n';
+        }
+    }
+
+    private static JournalState read(Path journal) throws IOException {
+        ConcurrentLongSet done = new ConcurrentLongSet();
+        ConcurrentLongSet failed = new ConcurrentLongSet();
+        String watermark = null;
+        if (Files.exists(journal)) {
+            try (BufferedReader reader = Files.newBufferedReader(journal, UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // the last line may be torn by a crash part way through a write
+                    if (line.length() < 3 || line.charAt(1) != ' ') {
+                        continue;
+                    }
+                    String value = line.substring(2);
+                    try {
+                        switch (line.charAt(0)) {
+                            case 'M', 'S':
+                                done.add(Long.parseLong(value));
+                                break;
+                            case 'F':
+                                failed.add(Long.parseLong(value));
+                                break;
+                            case 'W':
+                                watermark = value;
+                                break;
+                            default:
+                                break;
+                        }
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring unreadable journal entry {}", line);
+                    }
+                }
+            }
+        }
+        ConcurrentLongSet stillFailed = new ConcurrentLongSet();
+        for (long caseId : failed.toArray()) {
+            if (!done.contains(caseId)) {
+                stillFailed.add(caseId);
+            }
+        }
+        return new JournalState(watermark, done, stillFailed);
+    }
+
+    private static final class Page {
+        private final String lastReference;
+        private int remaining;
+
+        private Page(String lastReference, int remaining) {
+            this.lastReference = lastReference;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.domain.exception.CaseMigrationSkippedException;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Micrometer timers for each call a case goes through, so the one dominating per-case latency can be found before
+ * tuning thread counts. They are published through actuator's metrics endpoint and summarised in the final stats.
+ *
+ * <p>Every meter is tagged with the migration id. Phase timers are also tagged with how the call ended
+ * ({@code success}, {@code skipped} or the lower cased {@link FailureKind}) and, once it is known, the state of the
+ * case.
+ */
+@Component
+public class MigrationMetrics {
+
+    public static final String PHASE_TIMER = "migration.phase";
+    public static final String CASE_TIMER = "migration.case";
+    public static final String UNKNOWN_STATE = "unknown";
+
+    private static final String SUCCESS = "success";
+    private static final String SKIPPED = "skipped";
+
+    public enum Phase {
+        IDAM_TOKEN, ES_COUNT, ES_SEARCH, USER_DETAILS, START_EVENT, MIGRATE, SUBMIT_EVENT;
+
+        String tag() {
+            return name().toLowerCase(Locale.UK);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final String migrationId;
+
+    public MigrationMetrics(MeterRegistry registry,
+                            @Value("${case-migration.processing.id}") String migrationId) {
+        this.registry = registry;
+        this.migrationId = migrationId;
+    }
+
+    public <T> T time(Phase phase, Supplier<T> call) {
+        return time(phase, UNKNOWN_STATE, call);
+    }
+
+    /**
+     * Makes the call, recording how long it took under the phase.
+     */
+    public <T> T time(Phase phase, String state, Supplier<T> call) {
+        long startedAt = System.nanoTime();
+        String outcome = null;
+        try {
+            T result = call.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e instanceof CaseMigrationSkippedException
+                ? SKIPPED
+                : FailureKind.of(e).name().toLowerCase(Locale.UK);
+            throw e;
+        } finally {
+            // errors other than exceptions are left to the processor, which gives up on the case
+            if (outcome != null) {
+                Timer.builder(PHASE_TIMER)
+                    .tags(tags("phase", phase.tag(), "outcome", outcome, "state", stateTag(state)))
+                    .register(registry)
+                    .record(System.nanoTime() - startedAt, NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Records the time taken over a case from the start of its last attempt, by its outcome.
+     */
+    public void recordCase(CaseOutcome outcome, String state, long nanos) {
+        Timer.builder(CASE_TIMER)
+            .tags(tags("outcome", outcome.name().toLowerCase(Locale.UK), "state", stateTag(state)))
+            .register(registry)
+            .record(nanos, NANOSECONDS);
+    }
+
+    /**
+     * Registers a gauge sampled from the object whenever the metrics are read.
+     */
+    public <T> void gauge(String name, T sampled, ToDoubleFunction<T> value) {
+        Gauge.builder(name, sampled, value)
+            .tags(tags())
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * Phase timers recorded so far for this migration, to summarise at the end of a run.
+     */
+    public Collection<Timer> phaseTimers() {
+        return registry.find(PHASE_TIMER).tag("migration_id", migrationId).timers();
+    }
+
+    private Tags tags(String... keyValues) {
+        return Tags.of(keyValues).and("migration_id", migrationId);
+    }
+
+    private static String stateTag(String state) {
+        return state == null || state.isBlank() ? UNKNOWN_STATE : state;
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Records the outcome of every case processed in a run, safe for any number of concurrent workers.
+ *
+ * <p>Workers record under the shared side of a read/write lock, so they never block each other, while
+ * {@link #snapshot()} takes the exclusive side to get totals and ids from the same point in time.
+ */
+public class MigrationOutcomes {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<CaseOutcome, LongAdder> totals = new EnumMap<>(CaseOutcome.class);
+    private final Map<CaseOutcome, ConcurrentLongSet> caseIds = new EnumMap<>(CaseOutcome.class);
+
+    public MigrationOutcomes() {
+        for (CaseOutcome outcome : CaseOutcome.values()) {
+            totals.put(outcome, new LongAdder());
+            caseIds.put(outcome, new ConcurrentLongSet());
+        }
+    }
+
+    public void record(long caseId, CaseOutcome outcome) {
+        lock.readLock().lock();
+        try {
+            totals.get(outcome).increment();
+            caseIds.get(outcome).add(caseId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OutcomeSnapshot snapshot() {
+        Map<CaseOutcome, Long> counts = new EnumMap<>(CaseOutcome.class);
+        Map<CaseOutcome, long[]> ids = new EnumMap<>(CaseOutcome.class);
+        lock.writeLock().lock();
+        try {
+            for (CaseOutcome outcome : CaseOutcome.values()) {
+                counts.put(outcome, totals.get(outcome).sum());
+                ids.put(outcome, caseIds.get(outcome).toArray());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new OutcomeSnapshot(counts, ids);
+    }
+
+    /**
+     * Totals so far, without taking the lock or copying ids. Cheap enough to poll, but unlike a snapshot the totals
+     * may be from slightly different points in time.
+     */
+    public Map<CaseOutcome, Long> counts() {
+        Map<CaseOutcome, Long> counts = new EnumMap<>(CaseOutcome.class);
+        totals.forEach((outcome, total) -> counts.put(outcome, total.sum()));
+        return counts;
+    }
+
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            totals.values().forEach(LongAdder::reset);
+            caseIds.values().forEach(ConcurrentLongSet::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
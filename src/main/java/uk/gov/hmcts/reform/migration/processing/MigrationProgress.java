@@ -0,0 +1,99 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Tracks a run's progress against its total, to project when it will complete.
+ *
+ * <p>Each report samples the processed count, and the throughput is worked out over the samples in the sliding
+ * window, so it follows the run's current pace rather than its average since the start. One sample older than the
+ * window is kept, so the rate always spans the whole window once the run has been going that long.
+ */
+public class MigrationProgress {
+
+    private final long windowNanos;
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    private long startedAt;
+    private long total = -1;
+
+    public MigrationProgress(long windowNanos) {
+        this.windowNanos = windowNanos;
+        start(System.nanoTime());
+    }
+
+    /**
+     * Starts tracking a new run, whose total is not known yet.
+     */
+    public synchronized void start(long now) {
+        this.startedAt = now;
+        this.total = -1;
+        samples.clear();
+        samples.addLast(new Sample(now, 0));
+    }
+
+    /**
+     * Sets the number of cases the run has to process.
+     */
+    public synchronized void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Reports progress from the outcomes recorded so far.
+     *
+     * @param now      the current {@link System#nanoTime()}
+     * @param deadline the {@link System#nanoTime()} at which the run times out
+     */
+    public synchronized ProgressReport report(Map<CaseOutcome, Long> counts, long now, long deadline) {
+        long processed = counts.values().stream().mapToLong(Long::longValue).sum();
+        samples.addLast(new Sample(now, processed));
+        // keep the newest sample from before the window as its starting point
+        while (samples.size() > 2 && now - secondOldest().nanos >= windowNanos) {
+            samples.removeFirst();
+        }
+
+        Sample oldest = samples.peekFirst();
+        long elapsed = now - oldest.nanos;
+        double casesPerSecond = elapsed > 0 ? (processed - oldest.processed) * 1e9 / elapsed : 0;
+
+        Duration remaining = null;
+        if (total >= 0 && casesPerSecond > 0) {
+            long outstanding = Math.max(0, total - processed);
+            remaining = Duration.ofMillis(Math.round(outstanding / casesPerSecond * 1000));
+        }
+        return ProgressReport.builder()
+            .total(total)
+            .processed(processed)
+            .migrated(counts.get(CaseOutcome.MIGRATED))
+            .skipped(counts.get(CaseOutcome.SKIPPED))
+            .failed(counts.get(CaseOutcome.FAILED))
+            .casesPerSecond(casesPerSecond)
+            .elapsed(Duration.ofNanos(now - startedAt))
+            .remaining(remaining)
+            .projectedCompletion(remaining == null
+                ? null
+                : LocalDateTime.now().plus(remaining).truncatedTo(ChronoUnit.SECONDS))
+            .withinTimeout(remaining == null ? null : remaining.toNanos() <= deadline - now)
+            .build();
+    }
+
+    private Sample secondOldest() {
+        return samples.stream().skip(1).findFirst().orElseThrow();
+    }
+
+    private static final class Sample {
+        private final long nanos;
+        private final long processed;
+
+        private Sample(long nanos, long processed) {
+            this.nanos = nanos;
+            this.processed = processed;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import javax.annotation.PreDestroy;
+
+import static java.time.LocalDateTime.now;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toMap;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+
+/**
+ * Keeps the record of a migration run while the processor works through its cases: the outcome of each case, in
+ * the journal and the report as well as in memory, the progress against the run's total and timeout, and the cases
+ * left unprocessed, which are saved to the remainder file for the next run.
+ *
+ * <p>A run that retries its failures makes a second pass with fresh outcomes, carrying on with the same journal,
+ * which is only finished once the last pass is over.
+ */
+@Slf4j
+@Component
+public class MigrationRun {
+
+    private final MigrationJournal journal;
+    private final RemainderFile remainderFile;
+    private final RunReport report;
+    private final String migrationId;
+    private final int timeout;
+    private final int progressLogInterval;
+    private final MigrationProgress progress;
+    private final ScheduledExecutorService progressLogger;
+
+    private final MigrationOutcomes outcomes = new MigrationOutcomes();
+
+    // failed cases by the exception they failed with, for the summary
+    private final Map<String, LongAdder> failureTypes = new ConcurrentHashMap<>();
+
+    // cases taken off the queue, or never queued, without being worked on
+    private final ConcurrentLongSet unprocessed = new ConcurrentLongSet();
+
+    private ScheduledFuture<?> progressLogging;
+
+    private LocalDateTime startTime = now();
+
+    private long deadline;
+
+    // whether every case to migrate has been loaded, so those left unprocessed are all that is left to do
+    private volatile boolean allCasesKnown = true;
+
+    public MigrationRun(MigrationJournal journal,
+                        RemainderFile remainderFile,
+                        RunReport report,
+                        @Value("${case-migration.processing.id}") String migrationId,
+                        @Value("${case-migration.timeout:7200}") int timeout,
+                        @Value("${case-migration.progress.log_interval_s:60}") int progressLogInterval,
+                        @Value("${case-migration.progress.window_s:60}") int progressWindow) {
+        this.journal = journal;
+        this.remainderFile = remainderFile;
+        this.report = report;
+        this.migrationId = migrationId;
+        this.timeout = timeout;
+        this.progressLogInterval = progressLogInterval;
+        this.progress = new MigrationProgress(SECONDS.toNanos(progressWindow));
+        CustomizableThreadFactory progressThread = new CustomizableThreadFactory("migration-progress-");
+        progressThread.setDaemon(true);
+        this.progressLogger = Executors.newSingleThreadScheduledExecutor(progressThread);
+    }
+
+    public boolean isJournalEnabled() {
+        return journal.isEnabled();
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Clears the outcomes of an earlier pass, ready for the next.
+     */
+    public void reset() {
+        this.startTime = now();
+        this.outcomes.reset();
+        this.failureTypes.clear();
+    }
+
+    /**
+     * Starts the clock on the run's timeout, opens its report and picks up the journal of an earlier run.
+     *
+     * @return what the journal says an earlier run of the migration already did
+     */
+    public JournalState start() {
+        this.deadline = System.nanoTime() + SECONDS.toNanos(timeout);
+        progress.start(System.nanoTime());
+        report.open(migrationId);
+        if (progressLogInterval > 0) {
+            stopProgressLog();
+            progressLogging = progressLogger.scheduleAtFixedRate(this::logProgress, progressLogInterval,
+                progressLogInterval, SECONDS);
+        }
+        return journal.open(migrationId);
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    public void setTotal(long total) {
+        progress.setTotal(total);
+    }
+
+    public void setAllCasesKnown(boolean allCasesKnown) {
+        this.allCasesKnown = allCasesKnown;
+    }
+
+    /**
+     * Progress of the current run against its total, with the throughput over the last window and when the run
+     * is projected to complete.
+     */
+    public ProgressReport getProgress() {
+        return progress.report(outcomes.counts(), System.nanoTime(), deadline);
+    }
+
+    private void logProgress() {
+        ProgressReport report = getProgress();
+        if (Boolean.FALSE.equals(report.getWithinTimeout())) {
+            log.warn("Migration progress: {}, projected to run past the {}s timeout", report, timeout);
+        } else {
+            log.info("Migration progress: {}", report);
+        }
+    }
+
+    public void stopProgressLog() {
+        if (progressLogging != null) {
+            progressLogging.cancel(false);
+        }
+    }
+
+    /**
+     * Consistent view of the outcomes recorded so far in the current pass.
+     */
+    public OutcomeSnapshot getOutcomes() {
+        return outcomes.snapshot();
+    }
+
+    /**
+     * Number of cases that failed with each type of exception in the current pass.
+     */
+    public Map<String, Long> getFailureTypes() {
+        return failureTypes.entrySet().stream()
+            .collect(toMap(Map.Entry::getKey, type -> type.getValue().sum()));
+    }
+
+    public Path getReportFile() {
+        return report.getFile();
+    }
+
+    public void record(long caseId, CaseOutcome outcome) {
+        record(caseId, outcome, null, 0);
+    }
+
+    /**
+     * Records the final outcome of a case, along with the exception behind it and how long its last attempt took.
+     */
+    public void record(long caseId, CaseOutcome outcome, Exception error, long durationNanos) {
+        outcomes.record(caseId, outcome);
+        journal.record(caseId, outcome);
+        report.record(caseId, outcome, error, durationNanos);
+        if (outcome == FAILED) {
+            String type = error == null ? "unknown" : error.getClass().getName();
+            failureTypes.computeIfAbsent(type, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Notes the cases of a page as queued, moving the journal's watermark on once they are all done.
+     */
+    public void pageQueued(long[] caseIds, String lastReference) {
+        journal.pageQueued(caseIds, lastReference);
+    }
+
+    /**
+     * Leaves a case for the next run, which picks it up from the remainder file.
+     */
+    public void leaveUnprocessed(long caseId) {
+        unprocessed.add(caseId);
+    }
+
+    /**
+     * Keeps the journal once the run is over, so the next run picks up where this one stopped.
+     */
+    public void markIncomplete() {
+        journal.markIncomplete();
+    }
+
+    /**
+     * Saves the cases the run left unprocessed, including those still in flight, for the next run to migrate.
+     */
+    public void saveRemainder(Collection<Long> inFlight) {
+        long[] remainder = LongStream.concat(
+                Arrays.stream(unprocessed.toArray()),
+                inFlight.stream().mapToLong(Long::longValue))
+            .toArray();
+        if (remainder.length > 0) {
+            log.warn("{} cases were not processed, they will be migrated by the next run", remainder.length);
+        }
+        if (remainder.length == 0 && allCasesKnown) {
+            remainderFile.clear(migrationId);
+        } else {
+            remainderFile.write(migrationId, remainder, allCasesKnown);
+        }
+    }
+
+    /**
+     * Ends a run that could not get going, keeping the journal of any earlier run.
+     */
+    public void abandon() {
+        stopProgressLog();
+        journal.markIncomplete();
+        finish();
+    }
+
+    /**
+     * Closes the journal and the report of the run, which saves the ids of the cases that failed.
+     */
+    public void finish() {
+        journal.finish();
+        report.finish(outcomes.snapshot().getCaseIds(FAILED));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        progressLogger.shutdownNow();
+    }
+}
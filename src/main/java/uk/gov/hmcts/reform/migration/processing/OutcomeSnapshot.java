@@ -0,0 +1,54 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Point in time view of a run's outcomes, as taken by {@link MigrationOutcomes#snapshot()}.
+ */
+public class OutcomeSnapshot {
+
+    private final Map<CaseOutcome, Long> counts;
+    private final Map<CaseOutcome, long[]> caseIds;
+
+    OutcomeSnapshot(Map<CaseOutcome, Long> counts, Map<CaseOutcome, long[]> caseIds) {
+        this.counts = counts;
+        this.caseIds = caseIds;
+    }
+
+    public long getCount(CaseOutcome outcome) {
+        return counts.get(outcome);
+    }
+
+    public long[] getCaseIds(CaseOutcome outcome) {
+        return caseIds.get(outcome).clone();
+    }
+
+    public long getMigratedCount() {
+        return getCount(CaseOutcome.MIGRATED);
+    }
+
+    public long getSkippedCount() {
+        return getCount(CaseOutcome.SKIPPED);
+    }
+
+    public long getFailedCount() {
+        return getCount(CaseOutcome.FAILED);
+    }
+
+    public long getProcessedCount() {
+        return getMigratedCount() + getSkippedCount() + getFailedCount();
+    }
+
+    /**
+     * Failed case ids in the form accepted by a list based migration, for retrying them.
+     */
+    public List<String> getFailedCaseIdsForRetry() {
+        return Arrays.stream(caseIds.get(CaseOutcome.FAILED))
+            .mapToObj(Long::toString)
+            .collect(toList());
+    }
+}
@@ -0,0 +1,119 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import uk.gov.hmcts.reform.domain.exception.SearchFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Fetches search_after pages on a background thread, keeping up to {@code depth} pages ready ahead of the caller.
+ *
+ * <p>Each page depends on the last result of the one before, so pages are still fetched one at a time, but the
+ * next fetch overlaps with the caller working through the current page instead of waiting for it.
+ * An empty page marks the end of the results.
+ *
+ * <p>A page that cannot be fetched is tried again, backing off as the retry policy says, up to its maximum attempts.
+ * After that the failure is handed to the caller in place of the page and fetching stops, as no later page can be
+ * found without it.
+ */
+@Slf4j
+public class PagePrefetcher<T> implements AutoCloseable {
+
+    // stands in for the page that could not be fetched
+    private final List<T> failedPage = new ArrayList<>();
+
+    private final BlockingQueue<List<T>> pages;
+    private final RetryPolicy retryPolicy;
+    private final Future<?> fetcher;
+    private volatile SearchFailedException failure;
+
+    /**
+     * Starts fetching straight away.
+     *
+     * @param fetchPage returns the page following the given search_after value, or the first page for null
+     * @param cursor    gives the search_after value to continue from after a result
+     */
+    public PagePrefetcher(Function<String, List<T>> fetchPage, Function<T, String> cursor, int depth,
+                          RetryPolicy retryPolicy, ExecutorService executor) {
+        this(fetchPage, cursor, null, depth, retryPolicy, executor);
+    }
+
+    /**
+     * Starts fetching straight away from the results following {@code startAfter}, or from the first page if null.
+     */
+    public PagePrefetcher(Function<String, List<T>> fetchPage, Function<T, String> cursor, String startAfter,
+                          int depth, RetryPolicy retryPolicy, ExecutorService executor) {
+        this.pages = new ArrayBlockingQueue<>(Math.max(1, depth));
+        this.retryPolicy = retryPolicy;
+        this.fetcher = executor.submit(() -> fetchAll(fetchPage, cursor, startAfter));
+    }
+
+    /**
+     * Waits for the next page.
+     *
+     * @return the next page, an empty page once all results have been returned, or null if none arrived in time
+     * @throws SearchFailedException if the next page could not be fetched in as many attempts as the policy allows
+     */
+    public List<T> next(long timeout, TimeUnit unit) throws InterruptedException {
+        List<T> page = pages.poll(timeout, unit);
+        if (page == failedPage) {
+            throw failure;
+        }
+        return page;
+    }
+
+    /**
+     * Stops fetching, abandoning any pages not yet taken.
+     */
+    @Override
+    public void close() {
+        fetcher.cancel(true);
+    }
+
+    private void fetchAll(Function<String, List<T>> fetchPage, Function<T, String> cursor, String startAfter) {
+        String searchAfter = startAfter;
+        int page = 0;
+        int failures = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<T> results;
+                try {
+                    results = fetchPage.apply(searchAfter);
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        return;
+                    }
+                    failures++;
+                    if (failures >= retryPolicy.getMaxAttempts()) {
+                        log.error("Could not search for page {} in {} attempts, giving up", page, failures, e);
+                        failure = new SearchFailedException("Could not search for page " + page, e);
+                        pages.put(failedPage);
+                        return;
+                    }
+                    long backoff = retryPolicy.backoffNanos(failures);
+                    log.warn("Could not search for page {}, trying again in {}ms", page,
+                        TimeUnit.NANOSECONDS.toMillis(backoff), e);
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                    continue;
+                }
+
+                failures = 0;
+                pages.put(results);
+                if (results.isEmpty()) {
+                    return;
+                }
+                searchAfter = cursor.apply(results.get(results.size() - 1));
+                page++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
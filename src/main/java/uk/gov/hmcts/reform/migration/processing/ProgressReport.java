@@ -0,0 +1,43 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * A run's progress, as reported by {@link MigrationProgress#report}.
+ */
+@Value
+@Builder
+public class ProgressReport {
+
+    // -1 until the cases have been counted
+    long total;
+    long processed;
+    long migrated;
+    long skipped;
+    long failed;
+    double casesPerSecond;
+    Duration elapsed;
+    // null while the total or throughput is not known yet
+    Duration remaining;
+    LocalDateTime projectedCompletion;
+    Boolean withinTimeout;
+
+    /**
+     * One line of {@code key=value} pairs, for log based dashboards to parse.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.UK,
+            "processed=%d total=%d migrated=%d skipped=%d failed=%d rate=%.2f/s elapsed=%ds remaining=%s "
+                + "projected_completion=%s within_timeout=%s",
+            processed, total, migrated, skipped, failed, casesPerSecond, elapsed.toSeconds(),
+            remaining == null ? "unknown" : remaining.toSeconds() + "s",
+            projectedCompletion == null ? "unknown" : projectedCompletion,
+            withinTimeout == null ? "unknown" : withinTimeout);
+    }
+}
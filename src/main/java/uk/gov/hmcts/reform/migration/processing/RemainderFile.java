@@ -0,0 +1,142 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Cases a run was stopped before finishing, by the pod being shut down or the timeout, saved for the next run to
+ * migrate as a list.
+ *
+ * <p>The file holds a header saying whether every case had been loaded when the run stopped ({@code complete}) or
+ * some were still to come from the search ({@code partial}), then one case id per line in ascending order. It is
+ * kept per migration id in {@code case-migration.remainder.dir}, replaced in one atomic move so a reader never sees
+ * half of it, and removed once a run gets through all of its cases. No directory disables it. Like the journal's, the
+ * directory has to be on a persistent volume and must be writable for the application to start.
+ */
+@Slf4j
+@Component
+public class RemainderFile {
+
+    private static final String COMPLETE = "complete";
+    private static final String PARTIAL = "partial";
+
+    private final Path directory;
+
+    public RemainderFile(@Value("${case-migration.remainder.dir:${case-migration.journal.dir:}}") String directory) {
+        this.directory = StateDirectory.writable("case-migration.remainder.dir", directory);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Saves the cases left over by a run, replacing any saved by an earlier one.
+     *
+     * @param loadedAll whether every case of the run had been loaded, so the saved cases are all that is left
+     */
+    public void write(String migrationId, long[] caseIds, boolean loadedAll) {
+        if (!isEnabled()) {
+            return;
+        }
+        long[] sorted = Arrays.stream(caseIds).sorted().distinct().toArray();
+        Path file = file(migrationId);
+        Path partFile = directory.resolve(migrationId + ".remainder.part");
+        try {
+            Files.createDirectories(directory);
+            try (BufferedWriter writer = Files.newBufferedWriter(partFile, UTF_8)) {
+                writer.write(loadedAll ? COMPLETE : PARTIAL);
+                writer.newLine();
+                for (long caseId : sorted) {
+                    writer.write(Long.toString(caseId));
+                    writer.newLine();
+                }
+            }
+            Files.move(partFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            log.info("Saved {} unprocessed cases to {}", sorted.length, file);
+        } catch (IOException e) {
+            log.error("Could not save unprocessed cases to {}: {}", file, Arrays.toString(sorted), e);
+        }
+    }
+
+    /**
+     * Reads the cases an earlier run of the migration left over, if it saved any.
+     */
+    public Optional<Remainder> read(String migrationId) {
+        if (!isEnabled() || !Files.exists(file(migrationId))) {
+            return Optional.empty();
+        }
+        try {
+            List<String> lines = Files.readAllLines(file(migrationId), UTF_8);
+            if (lines.isEmpty()) {
+                return Optional.empty();
+            }
+            List<String> caseIds = lines.subList(1, lines.size()).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(toList());
+            return Optional.of(new Remainder(caseIds, COMPLETE.equals(lines.get(0).trim())));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read unprocessed cases from " + file(migrationId), e);
+        }
+    }
+
+    /**
+     * Removes the saved cases once a run has got through all of its cases.
+     */
+    public void clear(String migrationId) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            if (Files.deleteIfExists(file(migrationId))) {
+                log.info("Migration completed, removed unprocessed cases {}", file(migrationId));
+            }
+        } catch (IOException e) {
+            log.error("Could not remove unprocessed cases {}", file(migrationId), e);
+        }
+    }
+
+    private Path file(String migrationId) {
+        return directory.resolve(migrationId + ".remainder");
+    }
+
+    /**
+     * The cases an earlier run left over.
+     */
+    public static class Remainder {
+        private final List<String> caseIds;
+        private final boolean complete;
+
+        Remainder(List<String> caseIds, boolean complete) {
+            this.caseIds = caseIds;
+            this.complete = complete;
+        }
+
+        public List<String> getCaseIds() {
+            return caseIds;
+        }
+
+        /**
+         * Whether these are all the cases left, rather than only those loaded before the run stopped.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How often, and how long after failing, a case is tried again within the same run.
+ *
+ * <p>The wait doubles with each failure from the base delay up to the maximum, and half of it is random (equal
+ * jitter) so cases failed by the same blip do not all come back at once. One attempt disables in-run retries.
+ *
+ * <p>Cases put off because CCD is throttling or the circuit is open do not use up an attempt, but can only be put
+ * off so many times before they fail, so a CCD that never recovers cannot keep a case going round until the timeout.
+ */
+@Component
+public class RetryPolicy {
+
+    private static final int DEFAULT_MAX_DEFERRALS = 10;
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final int maxDeferrals;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this(maxAttempts, baseDelayMs, maxDelayMs, DEFAULT_MAX_DEFERRALS);
+    }
+
+    @Autowired
+    public RetryPolicy(@Value("${case-migration.retry.max_attempts:1}") int maxAttempts,
+                       @Value("${case-migration.retry.base_delay_ms:1000}") long baseDelayMs,
+                       @Value("${case-migration.retry.max_delay_ms:60000}") long maxDelayMs,
+                       @Value("${case-migration.retry.max_deferrals:10}") int maxDeferrals) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry max attempts must be at least 1");
+        }
+        if (maxDeferrals < 0) {
+            throw new IllegalArgumentException("Retry max deferrals cannot be negative");
+        }
+        if (baseDelayMs < 1 || maxDelayMs < baseDelayMs) {
+            throw new IllegalArgumentException("Retry delays must satisfy 1 <= base <= max");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(baseDelayMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.maxDeferrals = maxDeferrals;
+    }
+
+    public boolean isEnabled() {
+        return maxAttempts > 1;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getMaxDeferrals() {
+        return maxDeferrals;
+    }
+
+    /**
+     * Time to wait before the attempt following the given number of failures.
+     */
+    public long backoffNanos(int failures) {
+        long ceiling = baseDelayNanos;
+        for (int i = 1; i < failures && ceiling < maxDelayNanos; i++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxDelayNanos);
+        long half = ceiling / 2;
+        return ceiling - half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+}
@@ -0,0 +1,211 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Feeds failed cases back to a run's workers once their backoff has passed, and tracks when the run has no work
+ * left: every queued case has a final outcome and no retry is waiting.
+ *
+ * <p>Waiting retries are held in a {@link DelayQueue} and moved onto the work queue by {@link #feed}, on a thread
+ * of its own, as they fall due. Moving a retry happens under the same lock as {@link #close()}, so a retry is
+ * always either waiting here or on the work queue.
+ */
+public class RetryScheduler {
+
+    // how long to wait before trying again when the work queue is full
+    private static final long FULL_QUEUE_WAIT_NANOS = MILLISECONDS.toNanos(50);
+
+    private final RetryPolicy policy;
+    private final DelayQueue<ScheduledRetry> scheduled = new DelayQueue<>();
+    private final Map<Long, Integer> failures = new HashMap<>();
+    private final Map<Long, Integer> deferrals = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private long outstanding;
+    private boolean closed;
+
+    public RetryScheduler(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Counts a case handed to the workers for its first attempt.
+     */
+    public void queued() {
+        lock.lock();
+        try {
+            outstanding++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules another attempt at a failed case, unless it has used up its attempts or the run is over.
+     *
+     * @return the wait before the next attempt in milliseconds, or -1 if the case has failed for good
+     */
+    public long retry(long caseId) {
+        lock.lock();
+        try {
+            int failed = failures.merge(caseId, 1, Integer::sum);
+            if (closed || failed >= policy.getMaxAttempts()) {
+                return -1;
+            }
+            long delay = policy.backoffNanos(failed);
+            scheduled.add(new ScheduledRetry(caseId, System.nanoTime() + delay));
+            changed.signalAll();
+            return NANOSECONDS.toMillis(delay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a case that could not be attempted back on the queue after the given wait, without counting a failure,
+     * unless it has been put off as many times as the policy allows or the run is over.
+     *
+     * @return false if the case will not be tried again
+     */
+    public boolean defer(long caseId, long delayNanos) {
+        lock.lock();
+        try {
+            int deferred = deferrals.merge(caseId, 1, Integer::sum);
+            if (closed || deferred > policy.getMaxDeferrals()) {
+                return false;
+            }
+            scheduled.add(new ScheduledRetry(caseId, System.nanoTime() + delayNanos));
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a queued case as finished with, whatever its outcome.
+     */
+    public void settled(long caseId) {
+        lock.lock();
+        try {
+            failures.remove(caseId);
+            deferrals.remove(caseId);
+            if (--outstanding == 0) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of failures so far for a case still being retried.
+     */
+    public int getFailures(long caseId) {
+        lock.lock();
+        try {
+            return failures.getOrDefault(caseId, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every queued case has settled.
+     *
+     * @return false if some were still being worked on or waiting to be retried when the timeout passed
+     */
+    public boolean awaitSettled(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (outstanding > 0) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = changed.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves retries onto the work queue as they fall due, until closed or interrupted.
+     */
+    public void feed(BlockingQueue<Long> queue) {
+        lock.lock();
+        try {
+            while (!closed) {
+                ScheduledRetry next = scheduled.peek();
+                if (next == null) {
+                    changed.await();
+                } else if (next.getDelay(NANOSECONDS) > 0) {
+                    changed.awaitNanos(next.getDelay(NANOSECONDS));
+                } else if (queue.offer(next.caseId)) {
+                    scheduled.remove(next);
+                } else {
+                    changed.awaitNanos(FULL_QUEUE_WAIT_NANOS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops feeding retries and scheduling new ones.
+     *
+     * @return the cases whose retries were still waiting, in ascending order
+     */
+    public long[] close() {
+        lock.lock();
+        try {
+            closed = true;
+            long[] abandoned = scheduled.stream()
+                .mapToLong(retry -> retry.caseId)
+                .sorted()
+                .toArray();
+            scheduled.clear();
+            changed.signalAll();
+            return abandoned;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class ScheduledRetry implements Delayed {
+        private final long caseId;
+        private final long dueAt;
+
+        private ScheduledRetry(long caseId, long dueAt) {
+            this.caseId = caseId;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((ScheduledRetry) other).dueAt);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Report of a run, written as it goes rather than logged at the end, so runs over many cases do not log every id.
+ *
+ * <p>Each case's final outcome is one line of JSON in {@code <migration id>-<started at>.ndjson}, with the exception
+ * behind it and how long its last attempt took. Once the run finishes, the ids of the cases that failed are written
+ * one per line to {@code <migration id>-failed.txt}, which can be given to {@code case-migration.case_id_list.file}
+ * to migrate them again. Both are kept in {@code case-migration.report.dir}; no directory disables the report.
+ */
+@Slf4j
+@Component
+public class RunReport {
+
+    private static final DateTimeFormatter STARTED_AT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+
+    private String migrationId;
+    private Path file;
+    private BufferedWriter writer;
+
+    public RunReport(@Value("${case-migration.report.dir:}") String directory) {
+        this.directory = directory == null || directory.isBlank() ? null : Paths.get(directory);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Starts a report of the run, if one is not already open; a retry pass adds to the report of the run before it.
+     */
+    public synchronized void open(String migrationId) {
+        if (!isEnabled() || writer != null) {
+            return;
+        }
+        Path report = directory.resolve(migrationId + "-" + LocalDateTime.now().format(STARTED_AT) + ".ndjson");
+        try {
+            Files.createDirectories(directory);
+            this.writer = Files.newBufferedWriter(report, UTF_8);
+            this.migrationId = migrationId;
+            this.file = report;
+            log.info("Reporting case outcomes to {}", report);
+        } catch (IOException e) {
+            log.error("Could not open the run report {}, outcomes will not be reported", report, e);
+        }
+    }
+
+    /**
+     * Where the report is being written, or null if there is none.
+     */
+    public synchronized Path getFile() {
+        return file;
+    }
+
+    /**
+     * Adds the final outcome of a case to the report.
+     *
+     * @param error the exception the case failed or was skipped with, if any
+     */
+    public synchronized void record(long caseId, CaseOutcome outcome, Throwable error, long durationNanos) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write("{\"id\":" + caseId
+                + ",\"outcome\":\"" + outcome + "\""
+                + ",\"error\":" + (error == null ? "null" : "\"" + error.getClass().getName() + "\"")
+                + ",\"duration_ms\":" + NANOSECONDS.toMillis(durationNanos)
+                + "}");
+            writer.newLine();
+        } catch (IOException e) {
+            log.error("Could not report case {} as {}, closing the run report", caseId, outcome, e);
+            close();
+        }
+    }
+
+    /**
+     * Closes the report and writes the ids of the cases that failed, removing those of an earlier run if none did.
+     */
+    public synchronized void finish(long[] failedCaseIds) {
+        if (migrationId == null) {
+            return;
+        }
+        close();
+        Path failed = directory.resolve(migrationId + "-failed.txt");
+        try {
+            if (failedCaseIds.length == 0) {
+                Files.deleteIfExists(failed);
+            } else {
+                try (BufferedWriter failedWriter = Files.newBufferedWriter(failed, UTF_8)) {
+                    for (long caseId : failedCaseIds) {
+                        failedWriter.write(Long.toString(caseId));
+                        failedWriter.newLine();
+                    }
+                }
+                log.info("Saved {} failed case ids to {}", failedCaseIds.length, failed);
+            }
+        } catch (IOException e) {
+            log.error("Could not save failed case ids to {}", failed, e);
+        }
+        this.migrationId = null;
+        this.file = null;
+    }
+
+    private void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Could not close the run report {}", file, e);
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Directories that state is kept in between runs, checked when the application starts.
+ */
+final class StateDirectory {
+
+    private StateDirectory() {
+    }
+
+    /**
+     * Resolves the configured directory, creating it if need be.
+     *
+     * @return the directory, or null if none is configured
+     * @throws UncheckedIOException if the directory cannot be created or written to, so a run does not go ahead
+     *                              believing it can be resumed
+     */
+    static Path writable(String property, String directory) {
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        Path path = Paths.get(directory);
+        try {
+            Files.createDirectories(path);
+            Files.delete(Files.createTempFile(path, ".write-check", null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(property + " " + path + " is not a writable directory", e);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,42 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pause shared by every worker, set when CCD says it is throttling the tool.
+ *
+ * <p>Pausing only ever moves the resume time later, so a short Retry-After cannot cut a longer pause short.
+ */
+public class ThrottleGate {
+
+    private final AtomicLong resumeAt = new AtomicLong(System.nanoTime());
+
+    public void pauseFor(long nanos) {
+        long until = System.nanoTime() + nanos;
+        resumeAt.accumulateAndGet(until, (current, requested) -> requested - current > 0 ? requested : current);
+    }
+
+    public boolean isPaused() {
+        return resumeAt.get() - System.nanoTime() > 0;
+    }
+
+    /**
+     * Waits out any pause.
+     *
+     * @return false if still paused when the timeout passed, or the thread was interrupted
+     */
+    public boolean awaitResume(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long wait;
+        while ((wait = resumeAt.get() - System.nanoTime()) > 0) {
+            long untilDeadline = deadline - System.nanoTime();
+            if (untilDeadline <= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(this, Math.min(wait, untilDeadline));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock free token bucket shared by every worker, holding at most {@code burst} tokens and refilling at a fixed rate.
+ *
+ * <p>Rather than counting tokens the bucket stores the instant at which it would be empty. Taking a token moves
+ * that instant one refill interval later with a single compare and set, and a caller that lands in the future
+ * parks until then. Callers never hold a lock while waiting, so waiting threads do not serialise each other.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final TokenBucketRateLimiter UNLIMITED = new TokenBucketRateLimiter(0, 1);
+
+    private final long refillIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong emptyAt;
+
+    /**
+     * Creates a limiter that allows {@code permitsPerSecond} on average, or is unlimited if that is not positive.
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Rate limiter burst must be at least 1");
+        }
+        this.refillIntervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.capacityNanos = refillIntervalNanos * burst;
+        // start with a full bucket
+        this.emptyAt = new AtomicLong(System.nanoTime() - capacityNanos);
+    }
+
+    public static TokenBucketRateLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean isUnlimited() {
+        return refillIntervalNanos == 0;
+    }
+
+    /**
+     * Takes a token, parking the calling thread until one is available.
+     * Returns early, leaving the interrupt flag set, if the thread is interrupted while waiting.
+     */
+    public void acquire() {
+        if (isUnlimited()) {
+            return;
+        }
+        awaitUntil(reserve());
+    }
+
+    /**
+     * Takes a token if one is available within the timeout, parking the calling thread until then.
+     *
+     * @return false if no token is available in time, in which case none is taken, or if interrupted while waiting
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) {
+        if (isUnlimited()) {
+            return true;
+        }
+        long timeoutNanos = unit.toNanos(timeout);
+        while (true) {
+            long now = System.nanoTime();
+            long current = emptyAt.get();
+            long next = Math.max(current, now - capacityNanos) + refillIntervalNanos;
+            if (next - now > timeoutNanos) {
+                return false;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                awaitUntil(next);
+                return !Thread.currentThread().isInterrupted();
+            }
+        }
+    }
+
+    private void awaitUntil(long availableAt) {
+        long wait;
+        while ((wait = availableAt - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = emptyAt.get();
+            // a bucket left idle refills up to its capacity and no further
+            long base = Math.max(current, now - capacityNanos);
+            long next = base + refillIntervalNanos;
+            if (emptyAt.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -2,16 +2,19 @@ package uk.gov.hmcts.reform.migration.query;
 
 import net.minidev.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public interface EsQuery extends EsClause {
+    List<String> DEFAULT_SOURCE = List.of("reference", "jurisdiction");
+
     default JSONObject toQueryContext(int size, int from) {
         return new JSONObject(Map.of(
             "size", size,
             "from", from,
             "query", this.toMap(),
-            "_source", List.of("reference", "jurisdiction"),
+            "_source", DEFAULT_SOURCE,
             "track_total_hits", true
         ));
     }
@@ -22,30 +25,50 @@ public interface EsQuery extends EsClause {
                 "from", from,
                 "query", this.toMap(),
                 "sort", sort.toMap(),
-                "_source", List.of("reference", "jurisdiction"),
+                "_source", DEFAULT_SOURCE,
                 "track_total_hits", true)
         );
     }
 
     default JSONObject toQueryContext(int size, Sort sort) {
+        return toQueryContext(size, sort, List.of());
+    }
+
+    default JSONObject toQueryContext(int size, String after, Sort sort) {
+        return toQueryContext(size, after, sort, List.of());
+    }
+
+    /**
+     * Query returning {@code sourceFields} (e.g. {@code data.court}) alongside the reference and jurisdiction.
+     */
+    default JSONObject toQueryContext(int size, Sort sort, List<String> sourceFields) {
         return new JSONObject(Map.of(
             "size", size,
             "query", this.toMap(),
             "sort", sort.toMap(),
-            "_source", List.of("reference", "jurisdiction"),
+            "_source", source(sourceFields),
             "track_total_hits", true)
         );
     }
 
-    default JSONObject toQueryContext(int size, String after, Sort sort) {
+    default JSONObject toQueryContext(int size, String after, Sort sort, List<String> sourceFields) {
         return new JSONObject(Map.of(
             "size", size,
             "search_after", List.of(after),
             "query", this.toMap(),
             "sort", sort.toMap(),
-            "_source", List.of("reference", "jurisdiction"),
+            "_source", source(sourceFields),
             "track_total_hits", true)
         );
     }
 
+    private static List<String> source(List<String> sourceFields) {
+        if (sourceFields.isEmpty()) {
+            return DEFAULT_SOURCE;
+        }
+        List<String> source = new ArrayList<>(DEFAULT_SOURCE);
+        source.addAll(sourceFields);
+        return source;
+    }
+
 }
@@ -1,11 +1,13 @@
 package uk.gov.hmcts.reform.migration.query;
 
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+@EqualsAndHashCode
 @Builder
 public class Filter implements EsClause<Map<String, Object>> {
     private final List<EsClause> clauses;
@@ -1,76 +1,126 @@
 package uk.gov.hmcts.reform.migration.repository;
 
-import lombok.SneakyThrows;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
 import uk.gov.hmcts.reform.ccd.client.model.SearchResult;
 import uk.gov.hmcts.reform.migration.ccd.CoreCaseDataService;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
+import uk.gov.hmcts.reform.migration.query.BooleanQuery;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
+import uk.gov.hmcts.reform.migration.query.Filter;
+import uk.gov.hmcts.reform.migration.query.Must;
+import uk.gov.hmcts.reform.migration.query.RangeQuery;
 import uk.gov.hmcts.reform.migration.query.Sort;
 import uk.gov.hmcts.reform.migration.query.SortOrder;
 import uk.gov.hmcts.reform.migration.query.SortQuery;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 import static org.springframework.util.ObjectUtils.isEmpty;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.ES_COUNT;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.ES_SEARCH;
 
 @Repository
-@Slf4j
 public class ElasticSearchRepository {
 
     private final CoreCaseDataService ccdService;
 
-    public static final Sort SORT_BY_REF = Sort.builder()
-        .clauses(List.of(
-            SortQuery.of("reference.keyword", SortOrder.DESC)
-        ))
-        .build();
+    private final MigrationMetrics metrics;
+
+    public static final String REFERENCE = "reference";
+
+    public static final Sort SORT_BY_REF = sortByReference(SortOrder.DESC);
 
     @Autowired
-    public ElasticSearchRepository(CoreCaseDataService ccdService) {
+    public ElasticSearchRepository(CoreCaseDataService ccdService, MigrationMetrics metrics) {
         this.ccdService = ccdService;
+        this.metrics = metrics;
     }
 
     public int searchResultsSize(String userToken, String caseType, EsQuery query) {
         requireNonNull(query);
-        return search(userToken, caseType, query.toQueryContext(1, 0).toString()).getTotal();
+        return metrics.time(ES_COUNT,
+            () -> search(userToken, caseType, query.toQueryContext(1, 0).toString()).getTotal());
+    }
+
+    /**
+     * Splits the query into at most {@code partitions} disjoint slices covering equal ranges of case reference,
+     * between the lowest and highest reference it currently matches. Each slice can be paged independently.
+     */
+    public List<EsQuery> partitionByReference(String userToken, String caseType, EsQuery query, int partitions) {
+        requireNonNull(query);
+        Optional<Long> lowest = firstReference(userToken, caseType, query, SortOrder.ASC);
+        Optional<Long> highest = firstReference(userToken, caseType, query, SortOrder.DESC);
+        if (partitions <= 1 || lowest.isEmpty() || highest.isEmpty()) {
+            return List.of(query);
+        }
+
+        long low = lowest.get();
+        long high = highest.get();
+        long width = (high - low) / partitions + 1;
+
+        List<EsQuery> slices = new ArrayList<>();
+        for (long from = low; from <= high; from += width) {
+            slices.add(BooleanQuery.builder()
+                .must(Must.of(query))
+                .filter(Filter.builder()
+                    .clauses(List.of(RangeQuery.builder()
+                        .field(REFERENCE)
+                        .greaterThanOrEqual(from)
+                        .lessThan(from + width)
+                        .build()))
+                    .build())
+                .build());
+        }
+        return slices;
+    }
+
+    private Optional<Long> firstReference(String userToken, String caseType, EsQuery query, SortOrder order) {
+        SearchResult result = search(userToken, caseType, query.toQueryContext(1, sortByReference(order)).toString());
+        if (isEmpty(result) || isEmpty(result.getCases())) {
+            return Optional.empty();
+        }
+        return Optional.of(result.getCases().get(0).getId());
+    }
+
+    private static Sort sortByReference(SortOrder order) {
+        // references are all 16 digits, so the keyword sort matches numeric order
+        return Sort.builder()
+            .clauses(List.of(
+                SortQuery.of("reference.keyword", order)
+            ))
+            .build();
     }
 
     public SearchResult search(String userToken, String caseType, String query) {
         return ccdService.searchCases(userToken, caseType, query);
     }
 
-    @SneakyThrows
     public List<CaseDetails> search(String userToken, String caseType, EsQuery query, int size, String after) {
+        return search(userToken, caseType, query, size, after, List.of());
+    }
+
+    /**
+     * Returns a page of cases sorted by reference, with {@code sourceFields} populated as well as the reference
+     * and jurisdiction.
+     *
+     * <p>A failed search is not retried here: it is thrown to the caller, which decides whether to try the page
+     * again, so a page that cannot be fetched is never mistaken for the end of the results.
+     */
+    public List<CaseDetails> search(String userToken, String caseType, EsQuery query, int size, String after,
+                                    List<String> sourceFields) {
         requireNonNull(query);
-        SearchResult result = null;
-
-        // Attempt ES search with 20 retries
-        boolean completed = false;
-        int retries = 0;
-        while (!completed && retries < 20) {
-            try {
-                String queryStr = !isEmpty(after)
-                    ? query.toQueryContext(size, after, SORT_BY_REF).toString()
-                    : query.toQueryContext(size, SORT_BY_REF).toString();
-
-                result = search(userToken, caseType, queryStr);
-                completed = true;
-            } catch (Exception e) {
-                // let CCD recover if timeouts are happening
-                Thread.sleep(1000);
-                log.error("Failed to get page retry = {}", retries, e);
-                retries++;
-            }
-        }
+        String queryStr = !isEmpty(after)
+            ? query.toQueryContext(size, after, SORT_BY_REF, sourceFields).toString()
+            : query.toQueryContext(size, SORT_BY_REF, sourceFields).toString();
 
-        if (isEmpty(result)) {
-            log.error("ES Query returned no cases after 20 retries, {}, {}",
-                query.toQueryContext(size, SORT_BY_REF), after);
-            return List.of();
+        SearchResult result = metrics.time(ES_SEARCH, () -> search(userToken, caseType, queryStr));
+        if (isEmpty(result) || result.getCases() == null) {
+            throw new IllegalStateException("ES search returned no result for the page after " + after);
         }
         return result.getCases();
     }
@@ -6,9 +6,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import uk.gov.hmcts.reform.domain.exception.AuthenticationException;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
 
 import java.util.Objects;
 
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.IDAM_TOKEN;
+
 @Repository
 @Slf4j
 public class IdamRepository {
@@ -19,13 +22,17 @@ public class IdamRepository {
 
     private final String idamPassword;
 
+    private final MigrationMetrics metrics;
+
     @Autowired
     public IdamRepository(@Value("${migration.idam.username}") String idamUsername,
                           @Value("${migration.idam.password}") String idamPassword,
-                          IdamClient idamClient) {
+                          IdamClient idamClient,
+                          MigrationMetrics metrics) {
         this.idamUsername = idamUsername;
         this.idamPassword = idamPassword;
         this.idamClient = idamClient;
+        this.metrics = metrics;
     }
 
     public String generateUserToken() {
@@ -36,6 +43,6 @@ public class IdamRepository {
             throw new AuthenticationException("idam.password property can't be empty");
         }
         log.info("Authenticating user name {}", this.idamUsername);
-        return idamClient.authenticateUser(idamUsername, idamPassword);
+        return metrics.time(IDAM_TOKEN, () -> idamClient.authenticateUser(idamUsername, idamPassword));
     }
 }
@@ -0,0 +1,127 @@
+package uk.gov.hmcts.reform.migration.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.hmcts.reform.fpl.model.common.Element;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.commons.lang3.ObjectUtils.isEmpty;
+
+/**
+ * Reads and builds the {@code TTL} field of a case, straight from the case data as CCD returns it.
+ *
+ * <p>Fields are read where they are, without converting the case data into models first. Most cases only need a
+ * date or two, and the latest order is found in one pass over the order collection, however many orders it holds.
+ * The mapper and formatters are shared by every case.
+ */
+final class CaseTtl {
+
+    static final String TTL = "TTL";
+    static final String OVERRIDE_TTL = "OverrideTTL";
+    static final String SUSPENDED = "Suspended";
+    static final String SYSTEM_TTL = "SystemTTL";
+
+    static final String YES = "Yes";
+    static final String NO = "No";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_OF_ISSUE = DateTimeFormatter.ofPattern("d MMMM yyyy");
+
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {};
+    private static final TypeReference<Element<Map<String, Object>>> ELEMENT = new TypeReference<>() {};
+
+    private CaseTtl() {
+    }
+
+    /**
+     * A new TTL, neither overridden nor suspended.
+     */
+    static Map<String, Object> systemTtl(LocalDate from, long days) {
+        Map<String, Object> ttl = new HashMap<>();
+        ttl.put(OVERRIDE_TTL, null);
+        ttl.put(SUSPENDED, NO);
+        ttl.put(SYSTEM_TTL, from.plusDays(days).format(DATE));
+        return ttl;
+    }
+
+    /**
+     * A copy of the case's TTL with {@code Suspended} set, if it already has one.
+     */
+    static Map<String, Object> withSuspended(Object ttl, String suspended) {
+        Map<String, Object> updated = fields(ttl);
+        updated.replace(SUSPENDED, suspended);
+        return updated;
+    }
+
+    static LocalDate date(Object value) {
+        return LocalDate.parse(value.toString(), DATE);
+    }
+
+    /**
+     * Date the case was closed on, from its {@code closeCaseTabField}.
+     */
+    static LocalDate closedDate(Object closeCaseTabField) {
+        Object date = closeCaseTabField instanceof Map
+            ? ((Map<?, ?>) closeCaseTabField).get("date")
+            : fields(closeCaseTabField).get("date");
+        return date(date);
+    }
+
+    /**
+     * Approval date of the latest order in the collection, or null if there are none.
+     */
+    static LocalDate latestApprovalDate(Iterable<?> orderCollection) {
+        LocalDate latest = null;
+        for (Object element : orderCollection) {
+            LocalDate approved = approvalDate(valueOf(element));
+            if (latest == null || approved.isAfter(latest)) {
+                latest = approved;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * When the order was approved, from whichever of the fields orders have kept it in over time is set.
+     */
+    static LocalDate approvalDate(Map<?, ?> order) {
+        Object approvalDateTime = order.get("approvalDateTime");
+        if (!isEmpty(approvalDateTime)) {
+            return LocalDateTime.parse(approvalDateTime.toString()).toLocalDate();
+        }
+        Object approvalDate = order.get("approvalDate");
+        if (!isEmpty(approvalDate)) {
+            return date(approvalDate);
+        }
+        return LocalDate.parse(order.get("dateOfIssue").toString(), DATE_OF_ISSUE);
+    }
+
+    // elements come from CCD as maps, but may already be models when a migration built them itself
+    private static Map<?, ?> valueOf(Object element) {
+        if (element instanceof Map) {
+            return (Map<?, ?>) ((Map<?, ?>) element).get("value");
+        }
+        if (element instanceof Element) {
+            Object value = ((Element<?>) element).getValue();
+            if (value instanceof Map) {
+                return (Map<?, ?>) value;
+            }
+        }
+        return MAPPER.convertValue(element, ELEMENT).getValue();
+    }
+
+    private static Map<String, Object> fields(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> fields = new HashMap<>();
+            ((Map<?, ?>) value).forEach((key, field) -> fields.put(String.valueOf(key), field));
+            return fields;
+        }
+        return new HashMap<>(MAPPER.convertValue(value, FIELDS));
+    }
+}
@@ -3,6 +3,7 @@ package uk.gov.hmcts.reform.migration.service;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 public interface DataMigrationService<T> {
@@ -10,6 +11,16 @@ public interface DataMigrationService<T> {
 
     Predicate<CaseDetails> accepts();
 
+    /**
+     * ES fields (e.g. {@code data.court}, {@code state}) that {@link #accepts()} needs to decide on a case.
+     * When any are given they are fetched with each page of an ES query migration and cases are checked before
+     * being queued, so rejected cases never cost a CCD start event. {@link #accepts()} must then only rely on
+     * these fields, as nothing else is populated on the cases it is given.
+     */
+    default List<String> acceptanceFields() {
+        return List.of();
+    }
+
     T migrate(CaseDetails caseDetails, String migrationId);
 
     void validateMigrationId(String migrationId);
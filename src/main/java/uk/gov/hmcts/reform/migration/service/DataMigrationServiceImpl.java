@@ -1,13 +1,10 @@
 package uk.gov.hmcts.reform.migration.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
-import uk.gov.hmcts.reform.fpl.model.common.Element;
 import uk.gov.hmcts.reform.migration.query.BooleanQuery;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
 import uk.gov.hmcts.reform.migration.query.ExistsQuery;
@@ -17,8 +14,6 @@ import uk.gov.hmcts.reform.migration.query.Must;
 import uk.gov.hmcts.reform.migration.query.MustNot;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +24,7 @@ import java.util.function.Predicate;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang3.ObjectUtils.isEmpty;
+import static uk.gov.hmcts.reform.migration.service.CaseTtl.TTL;
 
 @Slf4j
 @Component
@@ -125,48 +121,27 @@ public class DataMigrationServiceImpl implements DataMigrationService<Map<String
     }
 
     public Map<String, Object> triggerTtlMigration(CaseDetails caseDetails) {
-        HashMap<String, Object> ttlMap = new HashMap<>();
-        ttlMap.put("OverrideTTL", null);
-        ttlMap.put("Suspended", "No");
-
-        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> data = caseDetails.getData();
+        LocalDate from;
+        long days = 6575;
 
         switch (caseDetails.getState()) {
             case "Open":
-                ttlMap.put("SystemTTL", addDaysAndConvertToString(
-                    caseDetails.getCreatedDate().toLocalDate(), 180));
+                from = caseDetails.getCreatedDate().toLocalDate();
+                days = 180;
                 break;
             case "Submitted", "Gatekeeping", "GATEKEEPING_LISTING", "RETURNED":
-                LocalDate dateSubmitted = convertValueToLocalDate(caseDetails.getData().get("dateSubmitted"));
-
-                ttlMap.put("SystemTTL", addDaysAndConvertToString(dateSubmitted, 6575));
+                from = CaseTtl.date(data.get("dateSubmitted"));
                 break;
             case "CLOSED":
-                Map<String, Object> closedCase = objectMapper.convertValue(
-                    caseDetails.getData().get("closeCaseTabField"),
-                    new TypeReference<Map<String, Object>>() {}
-                );
-
-                LocalDate closedCaseDate = convertValueToLocalDate(closedCase.get("date"));
-
-                ttlMap.put("SystemTTL", addDaysAndConvertToString(closedCaseDate,6575));
+                from = CaseTtl.closedDate(data.get("closeCaseTabField"));
                 break;
             case "PREPARE_FOR_HEARING", "FINAL_HEARING":
-                if (isEmpty(caseDetails.getData().get("orderCollection"))) {
-                    dateSubmitted = convertValueToLocalDate(caseDetails.getData().get("dateSubmitted"));
-                    ttlMap.put("SystemTTL", addDaysAndConvertToString(dateSubmitted, 6575));
+                Object orderCollection = data.get("orderCollection");
+                if (isEmpty(orderCollection)) {
+                    from = CaseTtl.date(data.get("dateSubmitted"));
                 } else {
-                    List<Element<Map<String,Object>>> orderCollection = objectMapper.convertValue(
-                        caseDetails.getData().get("orderCollection"),
-                        new TypeReference<List<Element<Map<String, Object>>>>() {}
-                    );
-
-                    orderCollection.sort((element1, element2) ->
-                        getApprovalDateOnElement(element1)
-                            .compareTo(getApprovalDateOnElement(element2)));
-
-                    LocalDate localDate = getApprovalDateOnElement(orderCollection.get(orderCollection.size() - 1));
-                    ttlMap.put("SystemTTL", addDaysAndConvertToString(localDate, 6575));
+                    from = CaseTtl.latestApprovalDate((Iterable<?>) orderCollection);
                 }
                 break;
             default:
@@ -174,70 +149,43 @@ public class DataMigrationServiceImpl implements DataMigrationService<Map<String
                     + "not in valid state for TTL migration", caseDetails.getId()));
         }
 
-        HashMap<String, Object> updates = new HashMap<>();
-        updates.put("TTL", ttlMap);
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(TTL, CaseTtl.systemTtl(from, days));
         return updates;
     }
 
     public Map<String, Object> triggerSuspendMigrationTtl(CaseDetails caseDetails) {
-        HashMap<String, Object> updates = new HashMap<>();
-        HashMap<String, Object> ttlMap = new HashMap<>();
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        if (caseDetails.getData().containsKey("TTL")) {
-            ttlMap = objectMapper.convertValue(caseDetails.getData().get("TTL"),
-                new TypeReference<HashMap<String, Object>>() {});
-            ttlMap.replace("Suspended", "Yes");
+        Map<String, Object> updates = new HashMap<>();
+        Object ttl = caseDetails.getData().get(TTL);
+
+        if (ttl != null) {
+            updates.put(TTL, CaseTtl.withSuspended(ttl, CaseTtl.YES));
         } else {
-            ttlMap.put("OverrideTTL", null);
-            ttlMap.put("Suspended", "Yes");
-            ttlMap.put("SystemTTL", null);
+            Map<String, Object> suspended = new HashMap<>();
+            suspended.put(CaseTtl.OVERRIDE_TTL, null);
+            suspended.put(CaseTtl.SUSPENDED, CaseTtl.YES);
+            suspended.put(CaseTtl.SYSTEM_TTL, null);
+            updates.put(TTL, suspended);
         }
-
-        updates.put("TTL", ttlMap);
         return updates;
     }
 
     public Map<String, Object> triggerResumeMigrationTtl(CaseDetails caseDetails) {
-        HashMap<String, Object> updates = new HashMap<>();
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        if (caseDetails.getData().containsKey("TTL")) {
-            HashMap<String, Object> ttlMap = objectMapper.convertValue(caseDetails.getData().get("TTL"),
-                new TypeReference<HashMap<String, Object>>() {});
-            ttlMap.replace("Suspended", "No");
-            updates.put("TTL", ttlMap);
-        }
+        Map<String, Object> updates = new HashMap<>();
+        Object ttl = caseDetails.getData().get(TTL);
 
+        if (ttl != null) {
+            updates.put(TTL, CaseTtl.withSuspended(ttl, CaseTtl.NO));
+        }
         return updates;
     }
 
     public Map<String, Object> triggerRemoveMigrationTtl(CaseDetails caseDetails) {
-        HashMap<String, Object> updates = new HashMap<>();
+        Map<String, Object> updates = new HashMap<>();
 
-        if (caseDetails.getData().containsKey("TTL")) {
-            updates.put("TTL", new HashMap<>());
+        if (caseDetails.getData().containsKey(TTL)) {
+            updates.put(TTL, new HashMap<>());
         }
-
         return updates;
     }
-
-    public LocalDate convertValueToLocalDate(Object dateOnCase) {
-        return LocalDate.parse(dateOnCase.toString(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-    }
-
-    public String addDaysAndConvertToString(LocalDate localDate, long daysToAdd) {
-        return localDate.plusDays(daysToAdd).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-    }
-
-    public LocalDate getApprovalDateOnElement(Element<Map<String, Object>> element) {
-        if (!isEmpty(element.getValue().get("approvalDateTime"))) {
-            return LocalDateTime.parse(element.getValue().get("approvalDateTime").toString()).toLocalDate();
-        } else if (!isEmpty(element.getValue().get("approvalDate"))) {
-            return convertValueToLocalDate(element.getValue().get("approvalDate"));
-        } else {
-            return LocalDate.parse(element.getValue().get("dateOfIssue").toString(),
-                DateTimeFormatter.ofPattern("d MMMM yyyy"));
-        }
-    }
 }
@@ -1,40 +1,77 @@
 package uk.gov.hmcts.reform.migration;
 
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.annotation.DirtiesContext;
+import uk.gov.hmcts.reform.ccd.client.CoreCaseDataApi;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
+import uk.gov.hmcts.reform.ccd.client.model.SearchResult;
+import uk.gov.hmcts.reform.domain.exception.CircuitOpenException;
+import uk.gov.hmcts.reform.idam.client.IdamClient;
+import uk.gov.hmcts.reform.migration.auth.TokenManager;
 import uk.gov.hmcts.reform.migration.ccd.CoreCaseDataService;
+import uk.gov.hmcts.reform.migration.configuration.RateLimitProperties;
+import uk.gov.hmcts.reform.migration.configuration.RateLimiterConfiguration;
+import uk.gov.hmcts.reform.migration.configuration.SearchProperties;
+import uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter;
+import uk.gov.hmcts.reform.migration.processing.CircuitBreaker;
+import uk.gov.hmcts.reform.migration.processing.MigrationJournal;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
+import uk.gov.hmcts.reform.migration.processing.MigrationRun;
+import uk.gov.hmcts.reform.migration.processing.RemainderFile;
+import uk.gov.hmcts.reform.migration.processing.RetryPolicy;
+import uk.gov.hmcts.reform.migration.processing.RunReport;
+import uk.gov.hmcts.reform.migration.processing.TokenBucketRateLimiter;
 import uk.gov.hmcts.reform.migration.query.BooleanQuery;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
 import uk.gov.hmcts.reform.migration.query.ExistsQuery;
 import uk.gov.hmcts.reform.migration.query.Filter;
+import uk.gov.hmcts.reform.migration.query.Must;
+import uk.gov.hmcts.reform.migration.query.MustNot;
+import uk.gov.hmcts.reform.migration.query.TermQuery;
 import uk.gov.hmcts.reform.migration.repository.ElasticSearchRepository;
 import uk.gov.hmcts.reform.migration.repository.IdamRepository;
+import uk.gov.hmcts.reform.migration.service.DataMigrationService;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.migration.CaseMigrationProcessor.EVENT_DESCRIPTION;
 import static uk.gov.hmcts.reform.migration.CaseMigrationProcessor.EVENT_ID;
 import static uk.gov.hmcts.reform.migration.CaseMigrationProcessor.EVENT_SUMMARY;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.repository.ElasticSearchRepository.SORT_BY_REF;
 
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +79,7 @@ import static uk.gov.hmcts.reform.migration.CaseMigrationProcessor.EVENT_SUMMARY
 class CaseMigrationProcessorTest {
 
     private static final String USER_TOKEN = "Bearer eeeejjjttt";
+    private static final String SERVICE_TOKEN = "Bearer sssjjjttt";
 
     private static final String CASE_TYPE = "CARE_SUPERVISION_EPO";
     private static final String CASE_JURISDICTION = "PUBLICLAW";
@@ -60,24 +98,43 @@ class CaseMigrationProcessorTest {
     @Mock
     private ElasticSearchRepository elasticSearchRepository;
 
+    @Mock
+    private CoreCaseDataApi coreCaseDataApi;
+
     @Mock
     private IdamRepository idamRepository;
 
+    @Mock
+    private DataMigrationService<Map<String, Object>> dataMigrationService;
+
     @Captor
     ArgumentCaptor<CaseDetails> caseDetailsArgumentCaptor;
 
+    private MigrationJournal journal = new MigrationJournal("", 1000);
+
+    private RemainderFile remainderFile = new RemainderFile("");
+    private RunReport report = new RunReport("");
+
+    private long shutdownGraceMs = 20000;
+
+    private boolean excludeMigrated;
+
+    private RetryPolicy retryPolicy = new RetryPolicy(1, 1000, 60000);
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker(false, 5, 30000);
+
     private static final EsQuery QUERY = BooleanQuery.builder()
         .filter(Filter.builder()
             .clauses(List.of(ExistsQuery.of("data.court")))
             .build())
         .build();
 
+    private static final String COUNT_QUERY = QUERY.toQueryContext(1, 0).toString();
+
     @BeforeEach
     void setUp() {
         when(idamRepository.generateUserToken()).thenReturn(USER_TOKEN);
-        caseMigrationProcessor = new CaseMigrationProcessor(coreCaseDataService,
-            elasticSearchRepository,
-            idamRepository,
+        caseMigrationProcessor = newProcessor(
             DEFAUT_QUERY_SIZE,
             DEFAULT_THREAD_LIMIT,
             0,
@@ -85,14 +142,59 @@ class CaseMigrationProcessorTest {
             CASE_JURISDICTION,
             CASE_TYPE,
             false,
-            300);
+            300,
+            false,
+            100);
+    }
+
+    private CaseMigrationProcessor newProcessor(int querySize, int threadLimit, int threadDelay, String migrationId,
+                                                String jurisdiction, String caseType, boolean retryFailures,
+                                                int timeout, boolean virtualThreads, int maxInFlight) {
+        return newProcessor(querySize, threadLimit, threadDelay, migrationId, jurisdiction, caseType, retryFailures,
+            timeout, virtualThreads, maxInFlight, 1);
+    }
+
+    private CaseMigrationProcessor newProcessor(int querySize, int threadLimit, int threadDelay, String migrationId,
+                                                String jurisdiction, String caseType, boolean retryFailures,
+                                                int timeout, boolean virtualThreads, int maxInFlight,
+                                                int esPartitions) {
+        return new CaseMigrationProcessor(coreCaseDataService,
+            elasticSearchRepository,
+            new TokenManager(idamRepository, () -> SERVICE_TOKEN, 600, 3600, 0),
+            dataMigrationService,
+            new MigrationRun(journal, remainderFile, report, migrationId, timeout, 0, 60),
+            retryPolicy,
+            circuitBreaker,
+            new MigrationMetrics(new SimpleMeterRegistry(), migrationId),
+            new AdaptiveConcurrencyLimiter(false, 1, threadLimit, 5000, 0.5),
+            new RateLimiterConfiguration().casesRateLimiter(new RateLimitProperties(), threadLimit, threadDelay,
+                virtualThreads, maxInFlight),
+            search(esPartitions),
+            querySize,
+            threadLimit,
+            migrationId,
+            jurisdiction,
+            caseType,
+            retryFailures,
+            virtualThreads,
+            maxInFlight,
+            excludeMigrated,
+            shutdownGraceMs);
+    }
+
+    private static SearchProperties search(int partitions) {
+        SearchProperties search = new SearchProperties();
+        search.setPartitions(partitions);
+        search.setSearchAttempts(2);
+        search.setSearchBackoffMs(1);
+        return search;
     }
 
     @Test
     void shouldMigrateCasesOfACaseTypeByParallelProcessing() throws InterruptedException {
         when(idamRepository.generateUserToken()).thenReturn(USER_TOKEN);
         List<CaseDetails> cases = createCaseDetails(1,2);
-        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null))
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
             .thenReturn(cases);
         when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
         caseMigrationProcessor.migrateQuery(QUERY);
@@ -126,7 +228,7 @@ class CaseMigrationProcessorTest {
         when(details.getId()).thenReturn(1677777777L);
         List<CaseDetails> caseDetails = new ArrayList<>();
         caseDetails.add(details);
-        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null))
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
             .thenReturn(caseDetails);
         when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
 
@@ -156,7 +258,7 @@ class CaseMigrationProcessorTest {
         List<CaseDetails> caseDetails = new ArrayList<>();
         caseDetails.add(details);
         caseDetails.add(details1);
-        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null))
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
             .thenReturn(caseDetails);
         when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
 
@@ -177,11 +279,48 @@ class CaseMigrationProcessorTest {
             .containsExactlyInAnyOrder(1L, 2L);
     }
 
+    @Test
+    void shouldMigrateMorePagesThanTheQueueCanHold() {
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            1,                  // single thread - queue only holds two cases at a time
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(20);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 10));
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, "10", List.of()))
+            .thenReturn(createCaseDetails(11, 10));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(20))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                caseDetailsArgumentCaptor.capture(),
+                eq(MIGRATION_ID));
+
+        assertThat(caseDetailsArgumentCaptor.getAllValues().stream().map(CaseDetails::getId))
+            .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, 20).boxed().collect(toList()));
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(20);
+    }
+
     @Test
     void shouldThrowExceptionWhenCaseTypeIsNull() {
-        caseMigrationProcessor = new CaseMigrationProcessor(coreCaseDataService,
-            elasticSearchRepository,
-            idamRepository,
+        caseMigrationProcessor = newProcessor(
             10,
             DEFAULT_THREAD_LIMIT,
             0,
@@ -189,16 +328,16 @@ class CaseMigrationProcessorTest {
             CASE_JURISDICTION,
             null,
             false,
-            300);
+            300,
+            false,
+            100);
         assertThatThrownBy(() -> caseMigrationProcessor.migrateQuery(BooleanQuery.builder().build()))
             .isInstanceOf(NullPointerException.class);
     }
 
     @Test
     void shouldThrowExceptionWhenQueryIsNull() {
-        caseMigrationProcessor = new CaseMigrationProcessor(coreCaseDataService,
-            elasticSearchRepository,
-            idamRepository,
+        caseMigrationProcessor = newProcessor(
             10,
             DEFAULT_THREAD_LIMIT,
             0,
@@ -206,7 +345,9 @@ class CaseMigrationProcessorTest {
             CASE_JURISDICTION,
             CASE_TYPE,
             false,
-            300);
+            300,
+            false,
+            100);
         assertThatThrownBy(() -> caseMigrationProcessor.migrateQuery(null))
             .isInstanceOf(NullPointerException.class);
     }
@@ -222,20 +363,20 @@ class CaseMigrationProcessorTest {
         caseDetails.add(details);
         caseDetails.add(details1);
 
-        caseMigrationProcessor = new CaseMigrationProcessor(coreCaseDataService,
-            elasticSearchRepository,
-            idamRepository,
+        caseMigrationProcessor = newProcessor(
             DEFAUT_QUERY_SIZE,
             1,                  // single thread - one migration at a time
-            20,                 // 20 seconds between each migration
+            20,                 // one case every 20 seconds
             MIGRATION_ID,
             CASE_JURISDICTION,
             CASE_TYPE,
             false,
-            10);                // timeout in 10 seconds, should only migrate one case
+            10,                 // timeout in 10 seconds, should only migrate one case
+            false,
+            100);
 
 
-        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null))
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
             .thenReturn(caseDetails);
         when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
 
@@ -260,9 +401,7 @@ class CaseMigrationProcessorTest {
 
     @Test
     void shouldThrowExceptionWhenMigrationIdIsNull() {
-        caseMigrationProcessor = new CaseMigrationProcessor(coreCaseDataService,
-            elasticSearchRepository,
-            idamRepository,
+        caseMigrationProcessor = newProcessor(
             10,
             DEFAULT_THREAD_LIMIT,
             0,
@@ -270,11 +409,570 @@ class CaseMigrationProcessorTest {
             CASE_JURISDICTION,
             CASE_TYPE,
             false,
-            300);
+            300,
+            false,
+            100);
         assertThatThrownBy(() -> caseMigrationProcessor.migrateQuery(BooleanQuery.builder().build()))
             .isInstanceOf(NullPointerException.class);
     }
 
+    @Test
+    void shouldMigrateCasesOnVirtualThreads() {
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            true,
+            4);                 // no more than four cases in flight at once
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(10);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 10));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenAnswer(invocation -> {
+                peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                // long enough for the dispatcher to start every case it is allowed to
+                MILLISECONDS.sleep(100);
+                inFlight.decrementAndGet();
+                return CaseDetails.builder().build();
+            });
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        assertThat(peakInFlight.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+        verify(coreCaseDataService, times(10))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                caseDetailsArgumentCaptor.capture(),
+                eq(MIGRATION_ID));
+
+        assertThat(caseDetailsArgumentCaptor.getAllValues().stream().map(CaseDetails::getId))
+            .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, 10).boxed().collect(toList()));
+    }
+
+    @Test
+    void shouldLoadPartitionsOfTheQueryInParallel() {
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100,
+            2);
+
+        EsQuery lowerHalf = mock(EsQuery.class);
+        EsQuery upperHalf = mock(EsQuery.class);
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(20);
+        when(elasticSearchRepository.partitionByReference(USER_TOKEN, CASE_TYPE, QUERY, 2))
+            .thenReturn(List.of(lowerHalf, upperHalf));
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, lowerHalf)).thenReturn(10);
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, upperHalf)).thenReturn(10);
+        // partitions are paged concurrently, so the order these are used in is not fixed
+        lenient().when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, lowerHalf, DEFAUT_QUERY_SIZE, null,
+                List.of()))
+            .thenReturn(createCaseDetails(1, 10));
+        lenient().when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, upperHalf, DEFAUT_QUERY_SIZE, null,
+                List.of()))
+            .thenReturn(createCaseDetails(11, 10));
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(20))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                caseDetailsArgumentCaptor.capture(),
+                eq(MIGRATION_ID));
+
+        assertThat(caseDetailsArgumentCaptor.getAllValues().stream().map(CaseDetails::getId))
+            .containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, 20).boxed().collect(toList()));
+    }
+
+    @Test
+    void shouldNotStartWithPartitionsAndAJournal(@TempDir Path journalDir) {
+        journal = new MigrationJournal(journalDir.toString(), 1000);
+
+        assertThatThrownBy(() -> newProcessor(DEFAUT_QUERY_SIZE, DEFAULT_THREAD_LIMIT, 0, MIGRATION_ID,
+            CASE_JURISDICTION, CASE_TYPE, false, 300, false, 100, 2))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("case-migration.es.partitions");
+    }
+
+    @Test
+    void shouldSkipCasesRejectedOnTheirSearchFieldsWithoutStartingAnEvent() {
+        List<String> fields = List.of("data.court");
+        List<CaseDetails> cases = createCaseDetails(1, 2);
+        cases.get(0).getData().put("court", Map.of("code", "344"));
+        when(dataMigrationService.acceptanceFields()).thenReturn(fields);
+        when(dataMigrationService.accepts()).thenReturn(caseDetails -> caseDetails.getData().containsKey("court"));
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, fields))
+            .thenReturn(cases);
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService)
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                caseDetailsArgumentCaptor.capture(),
+                eq(MIGRATION_ID));
+        assertThat(caseDetailsArgumentCaptor.getValue().getId()).isEqualTo(1L);
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(1);
+        assertThat(caseMigrationProcessor.getOutcomes().getSkippedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotPreFilterWhenTheMigrationNeedsTheFullCase() {
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 2));
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(dataMigrationService, never()).accepts();
+        verify(coreCaseDataService, times(2))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+        // rejected by the migration once loaded from CCD
+        assertThat(caseMigrationProcessor.getOutcomes().getSkippedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRetryAFailedCaseDuringTheRun() {
+        retryPolicy = new RetryPolicy(3, 10, 100);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(2);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 2));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(new RuntimeException("Service unavailable"))
+            .thenThrow(new RuntimeException("Service unavailable"))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(4))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(2);
+        assertThat(caseMigrationProcessor.getOutcomes().getFailedCount()).isZero();
+    }
+
+    @Test
+    void shouldFailACaseOnceItHasUsedUpItsAttempts() {
+        retryPolicy = new RetryPolicy(2, 10, 100);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(new RuntimeException("Service unavailable"));
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(2))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getCaseIds(FAILED)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldStartTheEventAgainStraightAwayWhenTheCaseChangedMidEvent() {
+        FeignException conflict = feignException(409);
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(conflict)
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(2))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTryAgainWithANewTokenWhenTheTokenIsRejected() {
+        String refreshedToken = "Bearer refreshed";
+        FeignException unauthorized = feignException(401);
+        when(idamRepository.generateUserToken()).thenReturn(refreshedToken);
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(unauthorized);
+        when(coreCaseDataService.update(eq(refreshedToken), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateList(List.of("1", "2"));
+
+        // authenticated once for the run, then once more however many workers had the token rejected
+        verify(idamRepository, times(2)).generateUserToken();
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotRetryACaseThatFailedValidation() {
+        retryPolicy = new RetryPolicy(3, 10, 100);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+        FeignException unprocessable = feignException(422);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(unprocessable);
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(1))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getCaseIds(FAILED)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldRetryAThrottledCaseAfterTheRequestedPause() {
+        FeignException throttled = feignException(429);
+        when(throttled.responseHeaders()).thenReturn(Map.of("retry-after", List.of("0")));
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(throttled)
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        // retried although in-run retries are off, as being throttled does not use up an attempt
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(1);
+        assertThat(caseMigrationProcessor.getOutcomes().getFailedCount()).isZero();
+    }
+
+    @Test
+    void shouldFailACaseThatIsThrottledEveryTime() {
+        retryPolicy = new RetryPolicy(1, 10, 100, 3);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+        FeignException throttled = feignException(429);
+        when(throttled.responseHeaders()).thenReturn(Map.of("retry-after", List.of("0")));
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(throttled);
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        // the first attempt and one after each of the three deferrals, then it fails rather than going round again
+        verify(coreCaseDataService, times(4)).update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY),
+            eq(EVENT_DESCRIPTION), eq(CASE_TYPE), any(), eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getFailedCount()).isEqualTo(1);
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isZero();
+    }
+
+    @Test
+    void shouldFailACaseKeptFromCcdByTheCircuitEveryTime() {
+        retryPolicy = new RetryPolicy(1, 10, 100, 2);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(1);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 1));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenThrow(new CircuitOpenException("Circuit open"));
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(3)).update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY),
+            eq(EVENT_DESCRIPTION), eq(CASE_TYPE), any(), eq(MIGRATION_ID));
+        assertThat(caseMigrationProcessor.getOutcomes().getFailedCount()).isEqualTo(1);
+    }
+
+    private static FeignException feignException(int status) {
+        FeignException exception = mock(FeignException.class);
+        when(exception.status()).thenReturn(status);
+        return exception;
+    }
+
+    @Test
+    void shouldExcludeCasesAlreadyMigratedWhenConfigured() {
+        excludeMigrated = true;
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+        EsQuery outstanding = BooleanQuery.builder()
+            .must(Must.of(QUERY))
+            .mustNot(MustNot.of(TermQuery.of("data.migrationId.keyword", MIGRATION_ID)))
+            .build();
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, outstanding)).thenReturn(2);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, outstanding, DEFAUT_QUERY_SIZE, null, List.of()))
+            .thenReturn(createCaseDetails(1, 2));
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(2))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                any(),
+                eq(MIGRATION_ID));
+    }
+
+    @Test
+    void shouldSearchForAPageAgainAfterAFailure() {
+        searchThroughCcd();
+        SearchResult count = total(10);
+        SearchResult firstPage = page(createCaseDetails(1, 10));
+        SearchResult lastPage = page(List.of());
+        FeignException unavailable = feignException(503);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, COUNT_QUERY)).thenReturn(count);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery(null)))
+            .thenReturn(firstPage);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery("10")))
+            .thenThrow(unavailable)
+            .thenReturn(lastPage);
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataApi, times(2)).searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery("10"));
+        assertThat(caseMigrationProcessor.getOutcomes().getMigratedCount()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldStopTheRunWhenAPageCannotBeSearched(@TempDir Path journalDir) {
+        journal = new MigrationJournal(journalDir.toString(), 1000);
+        searchThroughCcd();
+        SearchResult count = total(20);
+        SearchResult firstPage = page(createCaseDetails(1, 10));
+        FeignException unavailable = feignException(503);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, COUNT_QUERY)).thenReturn(count);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery(null)))
+            .thenReturn(firstPage);
+        when(coreCaseDataApi.searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery("10")))
+            .thenThrow(unavailable);
+        lenient().when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY),
+            eq(EVENT_DESCRIPTION), eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        // both attempts the policy allows, then the run gives up rather than searching forever
+        verify(coreCaseDataApi, times(2)).searchCases(USER_TOKEN, SERVICE_TOKEN, CASE_TYPE, pageQuery("10"));
+        // the journal is kept for the next run to carry on from
+        assertThat(journalDir.resolve(MIGRATION_ID + ".journal")).exists();
+    }
+
+    /**
+     * Searches through the repository and CCD service as they run in production, over the mocked CCD client.
+     */
+    private void searchThroughCcd() {
+        CoreCaseDataService ccd = new CoreCaseDataService(mock(IdamClient.class),
+            new TokenManager(idamRepository, () -> SERVICE_TOKEN, 600, 3600, 0),
+            coreCaseDataApi,
+            dataMigrationService,
+            TokenBucketRateLimiter.unlimited(),
+            circuitBreaker,
+            new AdaptiveConcurrencyLimiter(false, 1, DEFAULT_THREAD_LIMIT, 5000, 0.5),
+            new MigrationMetrics(new SimpleMeterRegistry(), MIGRATION_ID));
+        elasticSearchRepository = new ElasticSearchRepository(ccd,
+            new MigrationMetrics(new SimpleMeterRegistry(), MIGRATION_ID));
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+    }
+
+    private static String pageQuery(String after) {
+        return after == null
+            ? QUERY.toQueryContext(DEFAUT_QUERY_SIZE, SORT_BY_REF, List.of()).toString()
+            : QUERY.toQueryContext(DEFAUT_QUERY_SIZE, after, SORT_BY_REF, List.of()).toString();
+    }
+
+    private static SearchResult total(int total) {
+        SearchResult result = mock(SearchResult.class);
+        when(result.getTotal()).thenReturn(total);
+        return result;
+    }
+
+    private static SearchResult page(List<CaseDetails> cases) {
+        SearchResult result = mock(SearchResult.class);
+        when(result.getCases()).thenReturn(cases);
+        return result;
+    }
+
+    @Test
+    void shouldResumeFromTheJournalOfAnIncompleteRun(@TempDir Path journalDir) throws IOException {
+        // an earlier run got through the page ending at case 2, migrated case 4 and failed case 5
+        Files.write(journalDir.resolve(MIGRATION_ID + ".journal"), List.of("S 1", "M 2", "W 2", "M 4", "F 5"));
+        journal = new MigrationJournal(journalDir.toString(), 1000);
+        caseMigrationProcessor = newProcessor(
+            DEFAUT_QUERY_SIZE,
+            DEFAULT_THREAD_LIMIT,
+            0,
+            MIGRATION_ID,
+            CASE_JURISDICTION,
+            CASE_TYPE,
+            false,
+            300,
+            false,
+            100);
+
+        when(elasticSearchRepository.searchResultsSize(USER_TOKEN, CASE_TYPE, QUERY)).thenReturn(5);
+        when(elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, DEFAUT_QUERY_SIZE, "2", List.of()))
+            .thenReturn(createCaseDetails(3, 3));
+        when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+            eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+            .thenReturn(CaseDetails.builder().build());
+
+        caseMigrationProcessor.migrateQuery(QUERY);
+
+        verify(coreCaseDataService, times(2))
+            .update(eq(USER_TOKEN),
+                eq(EVENT_ID),
+                eq(EVENT_SUMMARY),
+                eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE),
+                caseDetailsArgumentCaptor.capture(),
+                eq(MIGRATION_ID));
+        assertThat(caseDetailsArgumentCaptor.getAllValues().stream().map(CaseDetails::getId))
+            .containsExactlyInAnyOrder(3L, 5L);
+        // the run completed, so the next one starts afresh
+        assertThat(journalDir.resolve(MIGRATION_ID + ".journal")).doesNotExist();
+    }
+
     @Nested
     class MigrateCaseList {
 
@@ -292,7 +990,190 @@ class CaseMigrationProcessorTest {
                     eq(CASE_TYPE),
                     any(),
                     eq(MIGRATION_ID));
+            assertThat(caseMigrationProcessor.getProgress().getTotal()).isEqualTo(2);
+            assertThat(caseMigrationProcessor.getProgress().getProcessed()).isEqualTo(2);
+        }
+
+        @Test
+        void shouldRetryTheFailuresOfTheResumedJournal(@TempDir Path journalDir) throws IOException {
+            // an earlier run of the list migrated case 2 and failed case 5
+            Files.write(journalDir.resolve(MIGRATION_ID + ".journal"), List.of("M 2", "F 5"));
+            journal = new MigrationJournal(journalDir.toString(), 1000);
+            caseMigrationProcessor = newProcessor(
+                DEFAUT_QUERY_SIZE,
+                DEFAULT_THREAD_LIMIT,
+                0,
+                MIGRATION_ID,
+                CASE_JURISDICTION,
+                CASE_TYPE,
+                false,
+                300,
+                false,
+                100);
+            when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+                .thenReturn(CaseDetails.builder().build());
+
+            caseMigrationProcessor.migrateList(List.of("1", "2", "5"));
+
+            verify(coreCaseDataService, times(2))
+                .update(eq(USER_TOKEN),
+                    eq(EVENT_ID),
+                    eq(EVENT_SUMMARY),
+                    eq(EVENT_DESCRIPTION),
+                    eq(CASE_TYPE),
+                    caseDetailsArgumentCaptor.capture(),
+                    eq(MIGRATION_ID));
+            assertThat(caseDetailsArgumentCaptor.getAllValues().stream().map(CaseDetails::getId))
+                .containsExactlyInAnyOrder(1L, 5L);
+            assertThat(caseMigrationProcessor.getProgress().getTotal()).isEqualTo(2);
+            assertThat(journalDir.resolve(MIGRATION_ID + ".journal")).doesNotExist();
+        }
+
+        @Test
+        void shouldSaveTheCasesLeftWhenShutDown(@TempDir Path remainderDir) throws InterruptedException {
+            remainderFile = new RemainderFile(remainderDir.toString());
+            shutdownGraceMs = 100;
+            caseMigrationProcessor = newProcessor(
+                DEFAUT_QUERY_SIZE,
+                1,
+                0,
+                MIGRATION_ID,
+                CASE_JURISDICTION,
+                CASE_TYPE,
+                false,
+                300,
+                false,
+                100);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await();
+                    return CaseDetails.builder().build();
+                });
+
+            Thread run = new Thread(() -> caseMigrationProcessor.migrateList(List.of("1", "2", "3")));
+            run.start();
+            assertThat(started.await(5, SECONDS)).isTrue();
+            caseMigrationProcessor.shutdown();
+            release.countDown();
+            run.join(5000);
+
+            // case 1 was still in flight once the grace period was over, 2 and 3 were never started
+            assertThat(run.isAlive()).isFalse();
+            assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(remainder -> {
+                assertThat(remainder.isComplete()).isTrue();
+                assertThat(remainder.getCaseIds()).containsExactly("1", "2", "3");
+            });
+            verify(coreCaseDataService, times(1))
+                .update(eq(USER_TOKEN),
+                    eq(EVENT_ID),
+                    eq(EVENT_SUMMARY),
+                    eq(EVENT_DESCRIPTION),
+                    eq(CASE_TYPE),
+                    any(),
+                    eq(MIGRATION_ID));
         }
 
+        @Test
+        void shouldLeaveAStoppedRunForTheShutdownToFinish(@TempDir Path journalDir) throws InterruptedException {
+            journal = new MigrationJournal(journalDir.toString(), 1000);
+            shutdownGraceMs = 100;
+            caseMigrationProcessor = newProcessor(
+                DEFAUT_QUERY_SIZE,
+                1,
+                0,
+                MIGRATION_ID,
+                CASE_JURISDICTION,
+                CASE_TYPE,
+                true,
+                300,
+                false,
+                100);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await();
+                    throw new IllegalStateException("Bad data");
+                });
+
+            Thread run = new Thread(() -> caseMigrationProcessor.migrateList(List.of("1", "2")));
+            run.start();
+            assertThat(started.await(5, SECONDS)).isTrue();
+            caseMigrationProcessor.shutdown();
+            release.countDown();
+            run.join(5000);
+
+            // the failed case is not retried in a further pass, and the journal is kept for the next run
+            assertThat(run.isAlive()).isFalse();
+            verify(coreCaseDataService, times(1))
+                .update(eq(USER_TOKEN),
+                    eq(EVENT_ID),
+                    eq(EVENT_SUMMARY),
+                    eq(EVENT_DESCRIPTION),
+                    eq(CASE_TYPE),
+                    any(),
+                    eq(MIGRATION_ID));
+            assertThat(journalDir.resolve(MIGRATION_ID + ".journal")).exists();
+        }
+
+        @Test
+        void shouldRemoveTheSavedCasesOnceARunCompletes(@TempDir Path remainderDir) {
+            remainderFile = new RemainderFile(remainderDir.toString());
+            remainderFile.write(MIGRATION_ID, new long[]{12345L}, true);
+            caseMigrationProcessor = newProcessor(
+                DEFAUT_QUERY_SIZE,
+                DEFAULT_THREAD_LIMIT,
+                0,
+                MIGRATION_ID,
+                CASE_JURISDICTION,
+                CASE_TYPE,
+                false,
+                300,
+                false,
+                100);
+
+            caseMigrationProcessor.migrateList(List.of("12345"));
+
+            assertThat(remainderFile.read(MIGRATION_ID)).isEmpty();
+        }
+
+        @Test
+        void shouldReportEachCaseAndSaveTheFailedIds(@TempDir Path reportDir) throws IOException {
+            report = new RunReport(reportDir.toString());
+            caseMigrationProcessor = newProcessor(
+                DEFAUT_QUERY_SIZE,
+                1,
+                0,
+                MIGRATION_ID,
+                CASE_JURISDICTION,
+                CASE_TYPE,
+                false,
+                300,
+                false,
+                100);
+            when(coreCaseDataService.update(eq(USER_TOKEN), eq(EVENT_ID), eq(EVENT_SUMMARY), eq(EVENT_DESCRIPTION),
+                eq(CASE_TYPE), any(), eq(MIGRATION_ID)))
+                .thenReturn(CaseDetails.builder().build())
+                .thenThrow(new IllegalStateException("Bad data"));
+
+            caseMigrationProcessor.migrateList(List.of("1", "2"));
+
+            assertThat(Files.readAllLines(reportDir.resolve(MIGRATION_ID + "-failed.txt"))).containsExactly("2");
+            try (Stream<Path> files = Files.list(reportDir)) {
+                Path ndjson = files.filter(file -> file.toString().endsWith(".ndjson")).findFirst().orElseThrow();
+                assertThat(Files.readAllLines(ndjson))
+                    .hasSize(2)
+                    .anySatisfy(line -> assertThat(line).startsWith("{\"id\":1,\"outcome\":\"MIGRATED\""))
+                    .anySatisfy(line -> assertThat(line)
+                        .startsWith("{\"id\":2,\"outcome\":\"FAILED\",\"error\":\"java.lang.IllegalStateException\""));
+            }
+        }
     }
 }
@@ -0,0 +1,113 @@
+package uk.gov.hmcts.reform.migration.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.hmcts.reform.authorisation.generators.AuthTokenGenerator;
+import uk.gov.hmcts.reform.migration.repository.IdamRepository;
+
+import java.time.Instant;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenManagerTest {
+
+    private static final long REFRESH_BEFORE_EXPIRY = 600;
+    private static final long DEFAULT_LIFETIME = 3600;
+
+    @Mock
+    private IdamRepository idamRepository;
+
+    @Mock
+    private AuthTokenGenerator serviceAuthTokenGenerator;
+
+    private TokenManager tokens;
+
+    @BeforeEach
+    void setUp() {
+        tokens = new TokenManager(idamRepository, serviceAuthTokenGenerator, REFRESH_BEFORE_EXPIRY,
+            DEFAULT_LIFETIME, 0);
+    }
+
+    @Test
+    void shouldFetchEachTokenOnce() {
+        String userToken = jwt(Instant.now().plusSeconds(7200));
+        when(idamRepository.generateUserToken()).thenReturn(userToken);
+        when(serviceAuthTokenGenerator.generate()).thenReturn("Bearer s2s");
+
+        assertThat(tokens.getUserToken()).isEqualTo(userToken);
+        assertThat(tokens.getUserToken()).isEqualTo(userToken);
+        assertThat(tokens.getServiceToken()).isEqualTo("Bearer s2s");
+        assertThat(tokens.getServiceToken()).isEqualTo("Bearer s2s");
+
+        verify(idamRepository, times(1)).generateUserToken();
+        verify(serviceAuthTokenGenerator, times(1)).generate();
+    }
+
+    @Test
+    void shouldReadTheExpiryFromTheJwt() {
+        Instant now = Instant.now();
+        Instant expiry = Instant.ofEpochSecond(now.getEpochSecond() + 7200);
+
+        assertThat(tokens.expiryOf(jwt(expiry), now)).isEqualTo(expiry);
+        assertThat(tokens.expiryOf("Bearer not-a-jwt", now)).isEqualTo(now.plusSeconds(DEFAULT_LIFETIME));
+    }
+
+    @Test
+    void shouldRefreshTokensCloseToExpiring() {
+        String expiring = jwt(Instant.now().plusSeconds(REFRESH_BEFORE_EXPIRY / 2));
+        String refreshed = jwt(Instant.now().plusSeconds(7200));
+        when(idamRepository.generateUserToken()).thenReturn(expiring, refreshed);
+        when(serviceAuthTokenGenerator.generate()).thenReturn("Bearer s2s");
+        tokens.getUserToken();
+        tokens.getServiceToken();
+
+        tokens.refreshDue();
+
+        assertThat(tokens.getUserToken()).isEqualTo(refreshed);
+        // without an expiry of its own the S2S token lasts the default lifetime, so is not due
+        verify(serviceAuthTokenGenerator, times(1)).generate();
+    }
+
+    @Test
+    void shouldKeepTheTokenWhenARefreshFails() {
+        String expiring = jwt(Instant.now().plusSeconds(REFRESH_BEFORE_EXPIRY / 2));
+        when(idamRepository.generateUserToken())
+            .thenReturn(expiring)
+            .thenThrow(new IllegalStateException("IDAM unavailable"));
+        when(serviceAuthTokenGenerator.generate()).thenReturn("Bearer s2s");
+        tokens.getUserToken();
+
+        tokens.refreshDue();
+
+        assertThat(tokens.getUserToken()).isEqualTo(expiring);
+    }
+
+    @Test
+    void shouldReplaceARejectedTokenOnlyOnce() {
+        String rejected = jwt(Instant.now().plusSeconds(7200));
+        String replacement = jwt(Instant.now().plusSeconds(7201));
+        when(idamRepository.generateUserToken()).thenReturn(rejected, replacement);
+        tokens.getUserToken();
+
+        assertThat(tokens.refreshUserToken(rejected)).isEqualTo(replacement);
+        assertThat(tokens.refreshUserToken(rejected)).isEqualTo(replacement);
+
+        verify(idamRepository, times(2)).generateUserToken();
+    }
+
+    private static String jwt(Instant expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return "Bearer " + encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(UTF_8))
+            + "." + encoder.encodeToString(("{\"exp\":" + expiry.getEpochSecond() + "}").getBytes(UTF_8))
+            + ".signature";
+    }
+}
@@ -0,0 +1,146 @@
+package uk.gov.hmcts.reform.migration.ccd;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
+import uk.gov.hmcts.reform.ccd.client.model.StartEventResponse;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaseDataDecoderTest {
+
+    // two and three bytes long in UTF-8, so the byte offsets of later fields differ from their char offsets
+    private static final String E_ACUTE = String.valueOf((char) 0xe9);
+    private static final String EN_DASH = String.valueOf((char) 0x2013);
+
+    private static final String START_EVENT = "{\"token\":\"event-token\",\"event_id\":\"migrateCase\","
+        + "\"case_details\":{\"id\":1234,\"jurisdiction\":\"PUBLICLAW\",\"state\":\"Submitted\","
+        + "\"created_date\":\"2023-01-02T10:00:00\",\"case_data\":{"
+        + "\"court\":{\"code\":\"344\",\"name\":\"Family Court sitting at Swansea\"},"
+        + "\"dfjArea\":\"SWANSEA\",\"caseName\":\"Smith " + EN_DASH + " Jones\",\"hearings\":0,\"closed\":null,"
+        + "\"documents\":[{\"id\":\"1\",\"value\":{\"name\":\"" + E_ACUTE + ".pdf\",\"tags\":[\"a\",{\"b\":[]}]}}],"
+        + "\"orders\":[]}}}";
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void shouldLeaveComplexFieldsUnparsedUntilRead() throws IOException {
+        StartEventResponse response = decode(decoder(true));
+
+        assertThat(response.getToken()).isEqualTo("event-token");
+        assertThat(response.getEventId()).isEqualTo("migrateCase");
+        CaseDetails caseDetails = response.getCaseDetails();
+        assertThat(caseDetails.getId()).isEqualTo(1234L);
+        assertThat(caseDetails.getState()).isEqualTo("Submitted");
+
+        LazyCaseData data = (LazyCaseData) caseDetails.getData();
+        assertThat(data.isParsed("court")).isFalse();
+        assertThat(data.isParsed("documents")).isFalse();
+        assertThat(data.get("dfjArea")).isEqualTo("SWANSEA");
+        assertThat(data.get("court")).isEqualTo(Map.of("code", "344", "name", "Family Court sitting at Swansea"));
+        assertThat(data.isParsed("court")).isTrue();
+        assertThat(data.isParsed("documents")).isFalse();
+        assertThat(data.containsKey("closed")).isTrue();
+        assertThat(data).hasSize(7);
+    }
+
+    @Test
+    void shouldDecodeTheSameCaseDataEitherWay() throws IOException {
+        Map<String, Object> eager = decode(decoder(false)).getCaseDetails().getData();
+        Map<String, Object> lazy = decode(decoder(true)).getCaseDetails().getData();
+
+        assertThat(eager).isNotInstanceOf(LazyCaseData.class);
+        assertThat(lazy).isEqualTo(eager);
+        assertThat(lazy.keySet()).containsExactlyElementsOf(eager.keySet());
+        assertThat(mapper.writeValueAsString(lazy)).isEqualTo(mapper.writeValueAsString(eager));
+    }
+
+    @Test
+    void shouldUpdateUnparsedFields() throws IOException {
+        Map<String, Object> data = decode(decoder(true)).getCaseDetails().getData();
+
+        // neither old value is parsed just to be handed back
+        assertThat(data.put("orders", List.of("order"))).isNull();
+        assertThat(data.remove("documents")).isNull();
+        assertThat(data.put("orders", List.of("order"))).isEqualTo(List.of("order"));
+
+        assertThat(data.get("orders")).isEqualTo(List.of("order"));
+        assertThat(data).doesNotContainKey("documents").hasSize(6);
+    }
+
+    @Test
+    void shouldDecodeOtherResponsesAsBefore() throws IOException {
+        Object caseDetails = decoder(true).decode(response(200,
+            "{\"id\":1234,\"case_data\":{\"court\":{\"code\":\"344\"}}}"), CaseDetails.class);
+
+        assertThat(((CaseDetails) caseDetails).getData()).isNotInstanceOf(LazyCaseData.class)
+            .containsEntry("court", Map.of("code", "344"));
+    }
+
+    @Test
+    void shouldLetGoOfTheBodyOnceEveryFieldIsParsed() throws IOException {
+        LazyCaseData data = (LazyCaseData) decode(decoder(true)).getCaseDetails().getData();
+
+        data.get("court");
+        assertThat(data.holdsBody()).isTrue();
+
+        data.get("documents");
+        data.remove("orders");
+        assertThat(data.holdsBody()).isFalse();
+        assertThat(data.get("documents")).isInstanceOf(List.class);
+    }
+
+    @Test
+    void shouldDecodeEveryResponseAsSpringWouldWhenOff() throws Exception {
+        Type optionalCaseDetails = getClass().getDeclaredMethod("optionalCaseDetails").getGenericReturnType();
+
+        Object optional = decoder(false).decode(response(200, "{\"id\":1234}"), optionalCaseDetails);
+
+        assertThat(optional).isEqualTo(Optional.of(CaseDetails.builder().id(1234L).build()));
+    }
+
+    @Test
+    void shouldDecodeNoContentAsEmpty() throws IOException {
+        assertThat(decoder(true).decode(response(204, ""), StartEventResponse.class)).isNull();
+    }
+
+    // gives the generic type of an optional response, as a client method returning one would
+    private Optional<CaseDetails> optionalCaseDetails() {
+        return Optional.empty();
+    }
+
+    private CaseDataDecoder decoder(boolean lazy) {
+        return new CaseDataDecoder(mapper, lazy,
+            () -> new HttpMessageConverters(false, List.of(new MappingJackson2HttpMessageConverter(mapper))),
+            new DefaultListableBeanFactory().getBeanProvider(HttpMessageConverterCustomizer.class));
+    }
+
+    private StartEventResponse decode(CaseDataDecoder decoder) throws IOException {
+        return (StartEventResponse) decoder.decode(response(200, START_EVENT), StartEventResponse.class);
+    }
+
+    private static Response response(int status, String body) {
+        return Response.builder()
+            .status(status)
+            .reason("OK")
+            .headers(Map.of("Content-Type", List.of("application/json")))
+            .request(Request.create(Request.HttpMethod.GET, "http://ccd/event-triggers/migrateCase/token", Map.of(),
+                null, UTF_8, null))
+            .body(body, UTF_8)
+            .build();
+    }
+}
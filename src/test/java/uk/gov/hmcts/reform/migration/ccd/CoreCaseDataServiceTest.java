@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.migration.ccd;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +14,12 @@ import uk.gov.hmcts.reform.ccd.client.model.Event;
 import uk.gov.hmcts.reform.ccd.client.model.StartEventResponse;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
 import uk.gov.hmcts.reform.idam.client.models.UserDetails;
+import uk.gov.hmcts.reform.migration.auth.TokenManager;
+import uk.gov.hmcts.reform.migration.processing.AdaptiveConcurrencyLimiter;
+import uk.gov.hmcts.reform.migration.processing.CircuitBreaker;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
+import uk.gov.hmcts.reform.migration.processing.TokenBucketRateLimiter;
+import uk.gov.hmcts.reform.migration.repository.IdamRepository;
 import uk.gov.hmcts.reform.migration.service.DataMigrationService;
 
 import java.util.LinkedHashMap;
@@ -20,6 +27,7 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.migration.service.DataMigrationService.MIGRATION_ID_KEY;
@@ -51,14 +59,21 @@ class CoreCaseDataServiceTest {
     @Mock
     private AuthTokenGenerator authTokenGenerator;
 
+    @Mock
+    private IdamRepository idamRepository;
+
     CaseDataContent caseDataContent;
 
     @BeforeEach
     void setUp() {
         underTest = new CoreCaseDataService(idamClient,
-            authTokenGenerator,
+            new TokenManager(idamRepository, authTokenGenerator, 600, 3600, 0),
             coreCaseDataApi,
-            dataMigrationService);
+            dataMigrationService,
+            TokenBucketRateLimiter.unlimited(),
+            new CircuitBreaker(false, 5, 30000),
+            new AdaptiveConcurrencyLimiter(false, 1, 5, 5000, 0.5),
+            new MigrationMetrics(new SimpleMeterRegistry(), DFPL_1124));
     }
 
     @Test
@@ -133,6 +148,34 @@ class CoreCaseDataServiceTest {
             CASE_TYPE, String.valueOf(CASE_ID), true, caseDataContent);
     }
 
+    @Test
+    void shouldFetchTheUserDetailsOncePerToken() {
+        String refreshedToken = "Bearer eyJhbGciOiJIUzI1NiJ9.refreshed";
+        CaseDetails caseDetails = createCaseDetails();
+        StartEventResponse startEventResponse = StartEventResponse.builder()
+            .eventId(EVENT_ID)
+            .token(EVENT_TOKEN)
+            .caseDetails(caseDetails)
+            .build();
+        when(idamClient.getUserDetails(AUTH_TOKEN)).thenReturn(UserDetails.builder().id(USER_ID).build());
+        when(idamClient.getUserDetails(refreshedToken)).thenReturn(UserDetails.builder().id(USER_ID).build());
+        when(authTokenGenerator.generate()).thenReturn(AUTH_TOKEN);
+        when(coreCaseDataApi.startEventForCaseWorker(AUTH_TOKEN, AUTH_TOKEN, USER_ID,
+            null, CASE_TYPE, String.valueOf(CASE_ID), EVENT_ID))
+            .thenReturn(startEventResponse);
+        when(coreCaseDataApi.startEventForCaseWorker(refreshedToken, AUTH_TOKEN, USER_ID,
+            null, CASE_TYPE, String.valueOf(CASE_ID), EVENT_ID))
+            .thenReturn(startEventResponse);
+        when(dataMigrationService.accepts()).thenReturn(caseDetails1 -> false);
+
+        underTest.update(AUTH_TOKEN, EVENT_ID, EVENT_SUMMARY, EVENT_DESC, CASE_TYPE, caseDetails, DFPL_1124);
+        underTest.update(AUTH_TOKEN, EVENT_ID, EVENT_SUMMARY, EVENT_DESC, CASE_TYPE, caseDetails, DFPL_1124);
+        underTest.update(refreshedToken, EVENT_ID, EVENT_SUMMARY, EVENT_DESC, CASE_TYPE, caseDetails, DFPL_1124);
+
+        verify(idamClient, times(1)).getUserDetails(AUTH_TOKEN);
+        verify(idamClient, times(1)).getUserDetails(refreshedToken);
+    }
+
     private CaseDetails createCaseDetails() {
         LinkedHashMap<String, Object> data = new LinkedHashMap<>();
         data.put(MIGRATION_ID_KEY, DFPL_1124);
@@ -0,0 +1,133 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long LATENCY_THRESHOLD_MS = 60_000;
+
+    private final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(true, 1, 10, LATENCY_THRESHOLD_MS, 0.5);
+
+    @Test
+    void shouldIncreaseLimitAdditivelyUpToMaximum() throws InterruptedException {
+        assertThat(limiter.getLimit()).isEqualTo(1);
+
+        succeed(1);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        succeed(100);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldHalveLimitOnceForFailuresStartedBeforeTheCut() throws InterruptedException {
+        succeed(100);
+
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        limiter.release(first, false);
+        limiter.release(second, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldNotBackOffBelowMinimum() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            limiter.release(limiter.acquire(), false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBackOffWhenACcdCallIsSlow() throws InterruptedException {
+        AdaptiveConcurrencyLimiter sensitive = new AdaptiveConcurrencyLimiter(true, 1, 10, 50, 0.5);
+        for (int i = 0; i < 20; i++) {
+            sensitive.release(sensitive.acquire(), true);
+        }
+        int limit = sensitive.getLimit();
+
+        long startedAt = sensitive.acquire();
+        sensitive.measure(this::sleep);
+        sensitive.release(startedAt, true);
+
+        assertThat(sensitive.getLimit()).isLessThan(limit);
+    }
+
+    @Test
+    void shouldNotCountTimeOutsideCcdCallsAsLatency() throws InterruptedException {
+        AdaptiveConcurrencyLimiter sensitive = new AdaptiveConcurrencyLimiter(true, 1, 10, 50, 0.5);
+        for (int i = 0; i < 20; i++) {
+            sensitive.release(sensitive.acquire(), true);
+        }
+        int limit = sensitive.getLimit();
+
+        long startedAt = sensitive.acquire();
+        // e.g. waiting on the rate limiter before the call
+        sleep();
+        sensitive.measure(() -> "fast");
+        sensitive.release(startedAt, true);
+
+        assertThat(sensitive.getLimit()).isGreaterThanOrEqualTo(limit);
+    }
+
+    @Test
+    void shouldBlockWhileLimitIsReached() throws Exception {
+        long held = limiter.acquire();
+
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(this::acquireUnchecked);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(waiting).isNotDone();
+
+        limiter.release(held, true);
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void shouldNotLimitWhenDisabled() throws InterruptedException {
+        AdaptiveConcurrencyLimiter disabled = new AdaptiveConcurrencyLimiter(false, 1, 10, LATENCY_THRESHOLD_MS, 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            disabled.acquire();
+        }
+
+        assertThat(disabled.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(true, 5, 4, LATENCY_THRESHOLD_MS, 0.5))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void succeed(int times) throws InterruptedException {
+        for (int i = 0; i < times; i++) {
+            limiter.release(limiter.acquire(), true);
+        }
+    }
+
+    private String sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(100);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return "slow";
+    }
+
+    private long acquireUnchecked() {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import feign.FeignException;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.domain.exception.CircuitOpenException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker(true, 2, 50);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void shouldOpenAfterConsecutiveFailuresAndStopCalling() {
+        fail(503);
+        fail(503);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.call(calls::incrementAndGet))
+            .isInstanceOf(CircuitOpenException.class);
+        assertThat(calls).hasValue(0);
+        assertThat(breaker.getTimesOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotOpenOnResponsesThatShowTheServiceIsUp() {
+        fail(503);
+        fail(404);
+        fail(503);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldHoldWorkersBackUntilTheOpenPeriodHasPassed() throws InterruptedException {
+        fail(-1);
+        fail(-1);
+
+        assertThat(breaker.awaitPermission(1, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(breaker.awaitPermission(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void shouldCloseWhenTheProbeSucceeds() throws InterruptedException {
+        fail(500);
+        fail(500);
+        breaker.awaitPermission(5, TimeUnit.SECONDS);
+
+        breaker.call(calls::incrementAndGet);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void shouldHoldTheOtherWorkersBackUntilTheProbeSettles() throws InterruptedException {
+        fail(500);
+        fail(500);
+        assertThat(breaker.awaitPermission(5, TimeUnit.SECONDS)).isTrue();
+
+        // only the first worker is let on to probe, the rest are not sent to be turned away
+        assertThat(breaker.awaitPermission(1, TimeUnit.MILLISECONDS)).isFalse();
+        breaker.call(calls::incrementAndGet);
+
+        assertThat(breaker.awaitPermission(0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldLetAnotherWorkerProbeWhenTheFirstMakesNoCall() throws InterruptedException {
+        fail(500);
+        fail(500);
+        breaker.awaitPermission(5, TimeUnit.SECONDS);
+
+        assertThat(breaker.awaitPermission(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.call(calls::incrementAndGet);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldReopenWhenTheProbeFails() throws InterruptedException {
+        fail(500);
+        fail(500);
+        breaker.awaitPermission(5, TimeUnit.SECONDS);
+
+        fail(429);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getTimesOpened()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPassCallsThroughWhenDisabled() throws InterruptedException {
+        CircuitBreaker disabled = new CircuitBreaker(false, 1, 50);
+        FeignException error = feignException(503);
+        assertThatThrownBy(() -> disabled.call(() -> {
+            throw error;
+        })).isSameAs(error);
+
+        assertThat(disabled.call(calls::incrementAndGet)).isEqualTo(1);
+        assertThat(disabled.awaitPermission(0, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    private void fail(int status) {
+        FeignException error = feignException(status);
+        assertThatThrownBy(() -> breaker.call(() -> {
+            throw error;
+        })).isSameAs(error);
+    }
+
+    private static FeignException feignException(int status) {
+        FeignException error = mock(FeignException.class);
+        when(error.status()).thenReturn(status);
+        return error;
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import feign.FeignException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import uk.gov.hmcts.reform.domain.exception.CaseNotFoundException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FailureKindTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "409, CONFLICT",
+        "429, THROTTLED",
+        "503, THROTTLED",
+        "400, PERMANENT",
+        "404, PERMANENT",
+        "422, PERMANENT",
+        "500, TRANSIENT",
+        "502, TRANSIENT",
+        "-1, TRANSIENT"
+    })
+    void shouldClassifyFeignExceptionsByStatus(int status, FailureKind expected) {
+        assertThat(FailureKind.of(feignException(status))).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldNotRetryACaseThatDoesNotExist() {
+        assertThat(FailureKind.of(new CaseNotFoundException())).isEqualTo(FailureKind.PERMANENT);
+    }
+
+    @Test
+    void shouldTreatOtherExceptionsAsTransient() {
+        assertThat(FailureKind.of(new IllegalStateException())).isEqualTo(FailureKind.TRANSIENT);
+    }
+
+    @Test
+    void shouldReadRetryAfterInSeconds() {
+        FeignException exception = feignException(429);
+        when(exception.responseHeaders()).thenReturn(Map.of("Retry-After", List.of("120")));
+
+        assertThat(FailureKind.retryAfter(exception)).contains(Duration.ofSeconds(120));
+    }
+
+    @Test
+    void shouldReadRetryAfterAsADate() {
+        FeignException exception = feignException(503);
+        String inAMinute = ZonedDateTime.now().plusMinutes(1).format(RFC_1123_DATE_TIME);
+        when(exception.responseHeaders()).thenReturn(Map.of("retry-after", List.of(inAMinute)));
+
+        assertThat(FailureKind.retryAfter(exception)).hasValueSatisfying(
+            wait -> assertThat(wait).isBetween(Duration.ofSeconds(50), Duration.ofSeconds(60)));
+    }
+
+    @Test
+    void shouldIgnoreAMissingOrUnreadableRetryAfter() {
+        FeignException exception = feignException(429);
+        when(exception.responseHeaders()).thenReturn(Map.of("Retry-After", List.of("soon")));
+
+        assertThat(FailureKind.retryAfter(exception)).isEmpty();
+        assertThat(FailureKind.retryAfter(new IllegalStateException())).isEmpty();
+    }
+
+    private static FeignException feignException(int status) {
+        FeignException exception = mock(FeignException.class);
+        when(exception.status()).thenReturn(status);
+        return exception;
+    }
+}
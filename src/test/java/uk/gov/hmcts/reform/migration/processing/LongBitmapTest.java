@@ -0,0 +1,122 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongBitmapTest {
+
+    private static final long FIRST_CASE_ID = 1_600_000_000_000_000L;
+
+    private final LongBitmap bitmap = new LongBitmap();
+
+    @Test
+    void shouldAddEachIdOnce() {
+        assertThat(bitmap.add(FIRST_CASE_ID)).isTrue();
+        assertThat(bitmap.add(FIRST_CASE_ID)).isFalse();
+        assertThat(bitmap.add(FIRST_CASE_ID + 1)).isTrue();
+
+        assertThat(bitmap.size()).isEqualTo(2);
+        assertThat(bitmap.contains(FIRST_CASE_ID)).isTrue();
+        assertThat(bitmap.contains(FIRST_CASE_ID + 2)).isFalse();
+    }
+
+    @Test
+    void shouldGiveTheIdsInAscendingOrder() {
+        long[] ids = {FIRST_CASE_ID + 70_000, 0L, -5L, FIRST_CASE_ID, Long.MAX_VALUE, Long.MIN_VALUE, 65_536L};
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+
+        assertThat(bitmap.toArray()).containsExactly(
+            Long.MIN_VALUE, -5L, 0L, 65_536L, FIRST_CASE_ID, FIRST_CASE_ID + 70_000, Long.MAX_VALUE);
+        List<Long> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertThat(visited).containsExactly(
+            Long.MIN_VALUE, -5L, 0L, 65_536L, FIRST_CASE_ID, FIRST_CASE_ID + 70_000, Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldKeepTheIdsOfADenseGroupAsItGrows() {
+        long[] ids = new Random(42).longs(20_000, FIRST_CASE_ID, FIRST_CASE_ID + 65_536).distinct().toArray();
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+
+        assertThat(bitmap.size()).isEqualTo(ids.length);
+        assertThat(bitmap.toArray()).containsExactly(LongStream.of(ids).sorted().toArray());
+        assertThat(bitmap.add(ids[0])).isFalse();
+        assertThat(bitmap.contains(ids[ids.length - 1])).isTrue();
+    }
+
+    @Test
+    void shouldTakeFarLessThanBoxedIds() {
+        LongStream.range(FIRST_CASE_ID, FIRST_CASE_ID + 1_000_000).forEach(bitmap::add);
+
+        // a million boxed ids in a list or set take upwards of 20MB
+        assertThat(bitmap.size()).isEqualTo(1_000_000);
+        assertThat(bitmap.sizeInBytes()).isLessThan(200_000);
+    }
+
+    @Test
+    void shouldKeepSparseIdsCompactWhateverTheirOrder() {
+        // timestamp-like references, some way apart, arriving newest first
+        long[] ids = timestampLikeIds(200_000);
+        for (int i = ids.length - 1; i >= 0; i--) {
+            bitmap.add(ids[i]);
+        }
+
+        assertThat(bitmap.size()).isEqualTo(ids.length);
+        assertThat(bitmap.toArray()).containsExactly(ids);
+        assertThat(bitmap.contains(ids[0] + 1)).isFalse();
+        assertThat(bitmap.sizeInBytes()).isLessThan(24L * ids.length);
+    }
+
+    @Test
+    void shouldReadBackWhatWasWritten() throws IOException {
+        LongStream.range(FIRST_CASE_ID, FIRST_CASE_ID + 10_000).forEach(bitmap::add);
+        LongStream.of(timestampLikeIds(1_000)).forEach(bitmap::add);
+        LongStream.of(5L, 1L << 40, FIRST_CASE_ID * 2).forEach(bitmap::add);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.writeTo(new DataOutputStream(bytes));
+        LongBitmap read = LongBitmap.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.size()).isEqualTo(bitmap.size());
+        assertThat(read.toArray()).containsExactly(bitmap.toArray());
+        assertThat(read.add(FIRST_CASE_ID * 2 + 1)).isTrue();
+    }
+
+    @Test
+    void shouldBeEmptyOnceCleared() {
+        LongStream.range(0, 10_000).forEach(bitmap::add);
+
+        bitmap.clear();
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.toArray()).isEmpty();
+        assertThat(bitmap.contains(1L)).isFalse();
+    }
+
+    // ascending ids shaped like case references: a millisecond timestamp with three more digits
+    private static long[] timestampLikeIds(int count) {
+        Random random = new Random(42);
+        long[] ids = new long[count];
+        long millis = FIRST_CASE_ID / 1000;
+        for (int i = 0; i < count; i++) {
+            millis += 1 + random.nextInt(400);
+            ids[i] = millis * 1000 + random.nextInt(1000);
+        }
+        return ids;
+    }
+}
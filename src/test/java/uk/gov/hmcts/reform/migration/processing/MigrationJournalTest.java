@@ -0,0 +1,159 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.MIGRATED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.SKIPPED;
+
+class MigrationJournalTest {
+
+    private static final String MIGRATION_ID = "DFPL-TEST";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldDoNothingWithoutADirectory() {
+        MigrationJournal journal = new MigrationJournal("", 1000);
+
+        JournalState state = journal.open(MIGRATION_ID);
+        journal.pageQueued(new long[]{1L}, "1");
+        journal.record(1L, MIGRATED);
+        journal.finish();
+
+        assertThat(journal.isEnabled()).isFalse();
+        assertThat(state.isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldCreateItsDirectoryOnStartup() {
+        Path journalDir = directory.resolve("journal");
+
+        new MigrationJournal(journalDir.toString(), 1000);
+
+        assertThat(journalDir).isDirectory().isEmptyDirectory();
+    }
+
+    @Test
+    void shouldNotStartWithADirectoryItCannotWriteTo() throws IOException {
+        Path notADirectory = Files.createFile(directory.resolve("journal"));
+
+        assertThatThrownBy(() -> new MigrationJournal(notADirectory.toString(), 1000))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("case-migration.journal.dir");
+    }
+
+    @Test
+    void shouldResumeFromWhatAnIncompleteRunRecorded() {
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 1000);
+        journal.open(MIGRATION_ID);
+        journal.pageQueued(new long[]{1L, 2L}, "2");
+        journal.pageQueued(new long[]{3L, 4L}, "4");
+        journal.record(1L, MIGRATED);
+        journal.record(2L, FAILED);
+        journal.record(3L, SKIPPED);
+        journal.markIncomplete();
+        journal.finish();
+
+        JournalState state = new MigrationJournal(directory.toString(), 1000).open(MIGRATION_ID);
+
+        assertThat(state.getWatermark()).isEqualTo("2");
+        assertThat(state.isDone(1L)).isTrue();
+        assertThat(state.isDone(3L)).isTrue();
+        assertThat(state.isDone(4L)).isFalse();
+        assertThat(state.getFailedCaseIds()).containsExactly(2L);
+    }
+
+    @Test
+    void shouldOnlyMoveTheWatermarkPastPagesCompletedInOrder() throws IOException {
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 1000);
+        journal.open(MIGRATION_ID);
+        journal.pageQueued(new long[]{1L}, "1");
+        journal.pageQueued(new long[]{2L}, "2");
+        journal.pageQueued(new long[]{3L}, "3");
+        journal.record(3L, MIGRATED);
+        journal.record(2L, MIGRATED);
+        journal.sync();
+
+        assertThat(Files.readAllLines(journalFile())).containsExactly("M 3", "M 2");
+
+        journal.record(1L, MIGRATED);
+        journal.sync();
+
+        assertThat(Files.readAllLines(journalFile())).containsExactly("M 3", "M 2", "M 1", "W 3");
+    }
+
+    @Test
+    void shouldMoveTheWatermarkPastPagesWithNothingQueued() throws IOException {
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 1000);
+        journal.open(MIGRATION_ID);
+        journal.pageQueued(new long[0], "10");
+        journal.sync();
+
+        assertThat(Files.readAllLines(journalFile())).containsExactly("W 10");
+    }
+
+    @Test
+    void shouldTreatACaseMigratedAfterFailingAsDone() throws IOException {
+        Files.write(journalFile(), List.of("F 1", "F 2", "M 1"));
+
+        JournalState state = new MigrationJournal(directory.toString(), 1000).open(MIGRATION_ID);
+
+        assertThat(state.isDone(1L)).isTrue();
+        assertThat(state.getFailedCaseIds()).containsExactly(2L);
+    }
+
+    @Test
+    void shouldIgnoreAnEntryTornByACrash() throws IOException {
+        Files.writeString(journalFile(), "M 1\nW 1\nM");
+
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 1000);
+        JournalState state = journal.open(MIGRATION_ID);
+        journal.record(2L, MIGRATED);
+        journal.sync();
+
+        assertThat(state.getWatermark()).isEqualTo("1");
+        assertThat(state.getDoneCount()).isEqualTo(1);
+        assertThat(Files.readAllLines(journalFile())).containsExactly("M 1", "W 1", "M", "M 2");
+    }
+
+    @Test
+    void shouldRemoveTheJournalOnceARunCompletes() {
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 1000);
+        journal.open(MIGRATION_ID);
+        journal.record(1L, MIGRATED);
+        journal.finish();
+
+        assertThat(journalFile()).doesNotExist();
+    }
+
+    @Test
+    void shouldSyncRecordsInTheBackground() throws InterruptedException {
+        MigrationJournal journal = new MigrationJournal(directory.toString(), 10);
+        journal.open(MIGRATION_ID);
+        journal.record(1L, MIGRATED);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journalFile().toFile().length() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(journalFile()).hasContent("M 1");
+        journal.markIncomplete();
+        journal.finish();
+    }
+
+    private Path journalFile() {
+        return directory.resolve(MIGRATION_ID + ".journal");
+    }
+}
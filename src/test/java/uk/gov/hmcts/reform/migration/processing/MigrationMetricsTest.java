@@ -0,0 +1,93 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.domain.exception.CaseMigrationSkippedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.CASE_TIMER;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.PHASE_TIMER;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.MIGRATE;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.START_EVENT;
+import static uk.gov.hmcts.reform.migration.processing.MigrationMetrics.Phase.SUBMIT_EVENT;
+
+class MigrationMetricsTest {
+
+    private static final String MIGRATION_ID = "DFPL-TEST";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MigrationMetrics metrics = new MigrationMetrics(registry, MIGRATION_ID);
+
+    @Test
+    void shouldTimeASuccessfulCall() {
+        String result = metrics.time(START_EVENT, () -> "started");
+
+        assertThat(result).isEqualTo("started");
+        assertThat(phaseTimer("start_event", "success", "unknown").count()).isOne();
+    }
+
+    @Test
+    void shouldTagAFailedCallWithHowItFailed() {
+        FeignException conflict = mock(FeignException.class);
+        when(conflict.status()).thenReturn(409);
+
+        assertThatThrownBy(() -> metrics.time(SUBMIT_EVENT, "Submitted", () -> {
+            throw conflict;
+        })).isSameAs(conflict);
+
+        assertThat(phaseTimer("submit_event", "conflict", "Submitted").count()).isOne();
+    }
+
+    @Test
+    void shouldTagACaseTheMigrationSkipped() {
+        assertThatThrownBy(() -> metrics.time(MIGRATE, "Open", () -> {
+            throw new CaseMigrationSkippedException("nothing to do");
+        })).isInstanceOf(CaseMigrationSkippedException.class);
+
+        assertThat(phaseTimer("migrate", "skipped", "Open").count()).isOne();
+    }
+
+    @Test
+    void shouldTimeCasesByOutcomeAndState() {
+        metrics.recordCase(CaseOutcome.MIGRATED, "Submitted", 1_000_000);
+        metrics.recordCase(CaseOutcome.MIGRATED, null, 1_000_000);
+
+        assertThat(registry.get(CASE_TIMER).tags("outcome", "migrated", "state", "Submitted").timer().count())
+            .isOne();
+        assertThat(registry.get(CASE_TIMER).tags("outcome", "migrated", "state", "unknown").timer().count())
+            .isOne();
+    }
+
+    @Test
+    void shouldSampleGauges() {
+        List<Long> queue = new ArrayList<>(List.of(1L, 2L));
+
+        metrics.gauge("migration.queue.depth", queue, List::size);
+
+        assertThat(registry.get("migration.queue.depth").tag("migration_id", MIGRATION_ID).gauge().value())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void shouldListThePhaseTimersOfTheMigration() {
+        metrics.time(START_EVENT, () -> "started");
+        new MigrationMetrics(registry, "DFPL-OTHER").time(START_EVENT, () -> "started");
+
+        assertThat(metrics.phaseTimers()).hasSize(1);
+    }
+
+    private Timer phaseTimer(String phase, String outcome, String state) {
+        return registry.get(PHASE_TIMER)
+            .tags("phase", phase, "outcome", outcome, "state", state, "migration_id", MIGRATION_ID)
+            .timer();
+    }
+}
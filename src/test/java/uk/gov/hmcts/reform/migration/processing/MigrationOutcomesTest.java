@@ -0,0 +1,64 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.MIGRATED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.SKIPPED;
+
+class MigrationOutcomesTest {
+
+    private static final long FIRST_CASE_ID = 1_600_000_000_000_000L;
+    private static final int THREADS = 25;
+    private static final int CASES_PER_THREAD = 10_000;
+
+    private final MigrationOutcomes outcomes = new MigrationOutcomes();
+
+    @Test
+    void shouldNotLoseOutcomesRecordedConcurrently() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            long first = FIRST_CASE_ID + (long) thread * CASES_PER_THREAD;
+            pool.execute(() -> LongStream.range(first, first + CASES_PER_THREAD)
+                .forEach(caseId -> outcomes.record(caseId, CaseOutcome.values()[(int) (caseId % 3)])));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        OutcomeSnapshot snapshot = outcomes.snapshot();
+
+        assertThat(snapshot.getProcessedCount()).isEqualTo(THREADS * CASES_PER_THREAD);
+        for (CaseOutcome outcome : CaseOutcome.values()) {
+            assertThat(snapshot.getCaseIds(outcome)).hasSize((int) snapshot.getCount(outcome));
+        }
+    }
+
+    @Test
+    void shouldReturnFailedCasesForRetry() {
+        outcomes.record(3L, FAILED);
+        outcomes.record(1L, MIGRATED);
+        outcomes.record(2L, FAILED);
+
+        OutcomeSnapshot snapshot = outcomes.snapshot();
+
+        assertThat(snapshot.getFailedCaseIdsForRetry()).containsExactly("2", "3");
+        assertThat(snapshot.getCaseIds(MIGRATED)).containsExactly(1L);
+        assertThat(snapshot.getSkippedCount()).isZero();
+    }
+
+    @Test
+    void shouldClearOutcomesOnReset() {
+        outcomes.record(1L, SKIPPED);
+
+        outcomes.reset();
+
+        assertThat(outcomes.snapshot().getProcessedCount()).isZero();
+        assertThat(outcomes.snapshot().getCaseIds(SKIPPED)).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MigrationProgressTest {
+
+    private static final long START = 1_000_000_000L;
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    private final MigrationProgress progress = new MigrationProgress(SECONDS.toNanos(60));
+
+    @Test
+    void shouldNotProjectCompletionUntilTheTotalIsKnown() {
+        progress.start(START);
+
+        ProgressReport report = progress.report(counts(10, 0, 0), at(10), NO_DEADLINE);
+
+        assertThat(report.getTotal()).isEqualTo(-1);
+        assertThat(report.getCasesPerSecond()).isEqualTo(1.0);
+        assertThat(report.getRemaining()).isNull();
+        assertThat(report.getWithinTimeout()).isNull();
+    }
+
+    @Test
+    void shouldProjectCompletionFromTheThroughput() {
+        progress.start(START);
+        progress.setTotal(100);
+
+        ProgressReport report = progress.report(counts(15, 3, 2), at(10), at(100));
+
+        assertThat(report.getProcessed()).isEqualTo(20);
+        assertThat(report.getMigrated()).isEqualTo(15);
+        assertThat(report.getCasesPerSecond()).isEqualTo(2.0);
+        assertThat(report.getRemaining()).isEqualTo(Duration.ofSeconds(40));
+        assertThat(report.getWithinTimeout()).isTrue();
+    }
+
+    @Test
+    void shouldWarnOfARunThatWillNotFinishInTime() {
+        progress.start(START);
+        progress.setTotal(1000);
+
+        ProgressReport report = progress.report(counts(10, 0, 0), at(10), at(100));
+
+        assertThat(report.getWithinTimeout()).isFalse();
+    }
+
+    @Test
+    void shouldMeasureThroughputOverTheWindowOnly() {
+        progress.start(START);
+        progress.setTotal(1000);
+        // a fast start, then one case a second
+        progress.report(counts(300, 0, 0), at(60), NO_DEADLINE);
+        progress.report(counts(330, 0, 0), at(90), NO_DEADLINE);
+
+        ProgressReport report = progress.report(counts(360, 0, 0), at(120), NO_DEADLINE);
+
+        assertThat(report.getCasesPerSecond()).isEqualTo(1.0);
+        assertThat(report.getElapsed()).isEqualTo(Duration.ofSeconds(120));
+    }
+
+    @Test
+    void shouldLogAsKeyValuePairs() {
+        progress.start(START);
+
+        assertThat(progress.report(counts(1, 0, 0), at(1), NO_DEADLINE).toString())
+            .startsWith("processed=1 total=-1 migrated=1 skipped=0 failed=0 rate=1.00/s elapsed=1s")
+            .endsWith("remaining=unknown projected_completion=unknown within_timeout=unknown");
+    }
+
+    private static long at(long seconds) {
+        return START + SECONDS.toNanos(seconds);
+    }
+
+    private static Map<CaseOutcome, Long> counts(long migrated, long skipped, long failed) {
+        Map<CaseOutcome, Long> counts = new EnumMap<>(CaseOutcome.class);
+        counts.put(CaseOutcome.MIGRATED, migrated);
+        counts.put(CaseOutcome.SKIPPED, skipped);
+        counts.put(CaseOutcome.FAILED, failed);
+        return counts;
+    }
+}
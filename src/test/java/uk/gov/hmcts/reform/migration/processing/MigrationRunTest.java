@@ -0,0 +1,88 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.FAILED;
+import static uk.gov.hmcts.reform.migration.processing.CaseOutcome.MIGRATED;
+
+class MigrationRunTest {
+
+    private static final String MIGRATION_ID = "DFPL-TEST";
+
+    @TempDir
+    Path directory;
+
+    private RemainderFile remainderFile;
+    private MigrationRun run;
+
+    @BeforeEach
+    void setUp() {
+        remainderFile = new RemainderFile(directory.toString());
+        run = new MigrationRun(new MigrationJournal("", 1000), remainderFile, new RunReport(""), MIGRATION_ID,
+            60, 0, 60);
+        run.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        run.shutdown();
+    }
+
+    @Test
+    void shouldSaveTheCasesLeftUnprocessedAndThoseInFlight() {
+        run.leaveUnprocessed(3L);
+
+        run.saveRemainder(List.of(1L));
+
+        assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(remainder -> {
+            assertThat(remainder.isComplete()).isTrue();
+            assertThat(remainder.getCaseIds()).containsExactly("1", "3");
+        });
+    }
+
+    @Test
+    void shouldClearTheRemainderOnceEveryCaseIsProcessed() {
+        remainderFile.write(MIGRATION_ID, new long[]{1L}, true);
+
+        run.saveRemainder(List.of());
+
+        assertThat(remainderFile.read(MIGRATION_ID)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepAnEmptyRemainderWhenNotEveryCaseWasLoaded() {
+        run.setAllCasesKnown(false);
+
+        run.saveRemainder(List.of());
+
+        assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(remainder -> {
+            assertThat(remainder.isComplete()).isFalse();
+            assertThat(remainder.getCaseIds()).isEmpty();
+        });
+    }
+
+    @Test
+    void shouldCountFailuresByTypeUntilReset() {
+        run.record(1L, MIGRATED);
+        run.record(2L, FAILED, new IllegalStateException(), 0);
+        run.record(3L, FAILED, new IllegalStateException(), 0);
+        run.record(4L, FAILED);
+
+        assertThat(run.getOutcomes().getProcessedCount()).isEqualTo(4);
+        assertThat(run.getFailureTypes())
+            .isEqualTo(Map.of(IllegalStateException.class.getName(), 2L, "unknown", 1L));
+
+        run.reset();
+
+        assertThat(run.getOutcomes().getProcessedCount()).isZero();
+        assertThat(run.getFailureTypes()).isEmpty();
+    }
+}
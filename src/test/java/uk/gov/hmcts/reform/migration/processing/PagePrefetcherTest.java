@@ -0,0 +1,137 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.domain.exception.SearchFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PagePrefetcherTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final RetryPolicy RETRIES = new RetryPolicy(3, 1, 10);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> requestedPages = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReturnEveryPageInOrderFollowedByAnEmptyPage() throws InterruptedException {
+        try (PagePrefetcher<Integer> pages =
+                 new PagePrefetcher<>(this::page, Object::toString, 2, RETRIES, executor)) {
+            List<Integer> results = new ArrayList<>();
+            List<Integer> page;
+            while (!(page = pages.next(5, TimeUnit.SECONDS)).isEmpty()) {
+                results.addAll(page);
+            }
+
+            assertThat(results).containsExactlyElementsOf(IntStream.rangeClosed(1, 30).boxed()
+                .collect(Collectors.toList()));
+            assertThat(requestedPages).containsExactly("null", "10", "20", "30");
+        }
+    }
+
+    @Test
+    void shouldFetchAheadOfTheCallerUpToTheDepth() throws InterruptedException {
+        try (PagePrefetcher<Integer> pages =
+                 new PagePrefetcher<>(this::page, Object::toString, 2, RETRIES, executor)) {
+            // two pages buffered and a third fetched while waiting for space
+            awaitRequests(3);
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertThat(requestedPages).hasSize(3);
+
+            assertThat(pages.next(5, TimeUnit.SECONDS)).hasSize(PAGE_SIZE);
+            awaitRequests(4);
+        }
+    }
+
+    @Test
+    void shouldReturnNullWhenNoPageArrivesInTime() throws InterruptedException {
+        CountDownLatch never = new CountDownLatch(1);
+        try (PagePrefetcher<Integer> pages = new PagePrefetcher<>(after -> {
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        }, Object::toString, 1, RETRIES, executor)) {
+            assertThat(pages.next(100, TimeUnit.MILLISECONDS)).isNull();
+        }
+    }
+
+    @Test
+    void shouldFetchAPageAgainAfterAFailure() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        try (PagePrefetcher<Integer> pages = new PagePrefetcher<>(after -> {
+            if ("10".equals(after) && failures.getAndIncrement() < 2) {
+                throw new IllegalStateException("ES unavailable");
+            }
+            return page(after);
+        }, Object::toString, 2, RETRIES, executor)) {
+            List<Integer> results = new ArrayList<>();
+            List<Integer> page;
+            while (!(page = pages.next(5, TimeUnit.SECONDS)).isEmpty()) {
+                results.addAll(page);
+            }
+
+            assertThat(results).hasSize(30);
+            assertThat(requestedPages).containsExactly("null", "10", "20", "30");
+        }
+    }
+
+    @Test
+    void shouldHandTheFailureToTheCallerOnceAttemptsAreUsedUp() throws InterruptedException {
+        IllegalStateException cause = new IllegalStateException("ES unavailable");
+        AtomicInteger attempts = new AtomicInteger();
+        try (PagePrefetcher<Integer> pages = new PagePrefetcher<>(after -> {
+            if ("10".equals(after)) {
+                attempts.incrementAndGet();
+                throw cause;
+            }
+            return page(after);
+        }, Object::toString, 2, RETRIES, executor)) {
+            assertThat(pages.next(5, TimeUnit.SECONDS)).hasSize(PAGE_SIZE);
+
+            assertThatThrownBy(() -> pages.next(5, TimeUnit.SECONDS))
+                .isInstanceOf(SearchFailedException.class)
+                .hasCause(cause);
+            assertThat(attempts).hasValue(3);
+            // nothing after the missing page is fetched
+            assertThat(requestedPages).containsExactly("null");
+        }
+    }
+
+    private List<Integer> page(String searchAfter) {
+        requestedPages.add(String.valueOf(searchAfter));
+        int last = searchAfter == null ? 0 : Integer.parseInt(searchAfter);
+        if (last >= 30) {
+            return List.of();
+        }
+        return IntStream.rangeClosed(last + 1, last + PAGE_SIZE).boxed().collect(Collectors.toList());
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requestedPages.size() < count && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(requestedPages).hasSizeGreaterThanOrEqualTo(count);
+    }
+}
@@ -0,0 +1,87 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RemainderFileTest {
+
+    private static final String MIGRATION_ID = "DFPL-TEST";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldDoNothingWithoutADirectory() {
+        RemainderFile remainderFile = new RemainderFile("");
+
+        remainderFile.write(MIGRATION_ID, new long[]{1L}, true);
+
+        assertThat(remainderFile.isEnabled()).isFalse();
+        assertThat(remainderFile.read(MIGRATION_ID)).isEmpty();
+    }
+
+    @Test
+    void shouldNotStartWithADirectoryItCannotWriteTo() throws IOException {
+        Path notADirectory = Files.createFile(directory.resolve("remainder"));
+
+        assertThatThrownBy(() -> new RemainderFile(notADirectory.toString()))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("case-migration.remainder.dir");
+    }
+
+    @Test
+    void shouldSaveTheCasesInOrderWithoutDuplicates() throws IOException {
+        RemainderFile remainderFile = new RemainderFile(directory.toString());
+
+        remainderFile.write(MIGRATION_ID, new long[]{3L, 1L, 2L, 1L}, true);
+
+        assertThat(Files.readAllLines(directory.resolve(MIGRATION_ID + ".remainder")))
+            .containsExactly("complete", "1", "2", "3");
+        assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(remainder -> {
+            assertThat(remainder.isComplete()).isTrue();
+            assertThat(remainder.getCaseIds()).containsExactly("1", "2", "3");
+        });
+    }
+
+    @Test
+    void shouldNoteWhenCasesWereStillToBeLoaded() {
+        RemainderFile remainderFile = new RemainderFile(directory.toString());
+
+        remainderFile.write(MIGRATION_ID, new long[]{5L}, false);
+
+        assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(remainder -> {
+            assertThat(remainder.isComplete()).isFalse();
+            assertThat(remainder.getCaseIds()).containsExactly("5");
+        });
+    }
+
+    @Test
+    void shouldReplaceTheCasesSavedByAnEarlierRun() {
+        RemainderFile remainderFile = new RemainderFile(directory.toString());
+
+        remainderFile.write(MIGRATION_ID, new long[]{1L, 2L}, true);
+        remainderFile.write(MIGRATION_ID, new long[]{2L}, true);
+
+        assertThat(remainderFile.read(MIGRATION_ID)).hasValueSatisfying(
+            remainder -> assertThat(remainder.getCaseIds()).containsExactly("2"));
+        assertThat(directory.resolve(MIGRATION_ID + ".remainder.part")).doesNotExist();
+    }
+
+    @Test
+    void shouldRemoveTheSavedCases() {
+        RemainderFile remainderFile = new RemainderFile(directory.toString());
+        remainderFile.write(MIGRATION_ID, new long[]{1L}, true);
+
+        remainderFile.clear(MIGRATION_ID);
+
+        assertThat(remainderFile.read(MIGRATION_ID)).isEmpty();
+    }
+}
@@ -0,0 +1,47 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryPolicyTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RetryPolicy policy = new RetryPolicy(5, 1000, 8000);
+
+    @Test
+    void shouldDoubleTheBackoffWithEachFailure() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.backoffNanos(1)).isBetween(SECOND / 2, SECOND);
+            assertThat(policy.backoffNanos(2)).isBetween(SECOND, 2 * SECOND);
+            assertThat(policy.backoffNanos(3)).isBetween(2 * SECOND, 4 * SECOND);
+        }
+    }
+
+    @Test
+    void shouldNotWaitLongerThanTheMaximumDelay() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.backoffNanos(1000)).isBetween(4 * SECOND, 8 * SECOND);
+        }
+    }
+
+    @Test
+    void shouldOnlyBeEnabledWithMoreThanOneAttempt() {
+        assertThat(policy.isEnabled()).isTrue();
+        assertThat(new RetryPolicy(1, 1000, 8000).isEnabled()).isFalse();
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new RetryPolicy(0, 1000, 8000))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RetryPolicy(3, 1000, 500))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RetryPolicy(3, 1000, 8000, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrySchedulerTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final RetryScheduler retries = new RetryScheduler(new RetryPolicy(3, 10, 100));
+
+    @AfterEach
+    void tearDown() {
+        retries.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldFeedAFailedCaseBackOnceItsBackoffHasPassed() throws InterruptedException {
+        executor.execute(() -> retries.feed(queue));
+        retries.queued();
+
+        long retryIn = retries.retry(1L);
+
+        assertThat(retryIn).isBetween(5L, 10L);
+        assertThat(queue.poll(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(retries.getFailures(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRequeueADeferredCaseWithoutCountingAFailure() throws InterruptedException {
+        executor.execute(() -> retries.feed(queue));
+        retries.queued();
+
+        assertThat(retries.defer(1L, TimeUnit.MILLISECONDS.toNanos(10))).isTrue();
+        assertThat(queue.poll(5, TimeUnit.SECONDS)).isEqualTo(1L);
+        assertThat(retries.getFailures(1L)).isZero();
+    }
+
+    @Test
+    void shouldGiveUpOnceACaseHasBeenDeferredTooOften() {
+        RetryScheduler deferring = new RetryScheduler(new RetryPolicy(3, 10, 100, 2));
+        deferring.queued();
+
+        assertThat(deferring.defer(1L, 0)).isTrue();
+        assertThat(deferring.defer(1L, 0)).isTrue();
+        assertThat(deferring.defer(1L, 0)).isFalse();
+        assertThat(deferring.getFailures(1L)).isZero();
+    }
+
+    @Test
+    void shouldGiveUpOnceACaseHasUsedUpItsAttempts() {
+        retries.queued();
+
+        assertThat(retries.retry(1L)).isNotNegative();
+        assertThat(retries.retry(1L)).isNotNegative();
+        assertThat(retries.retry(1L)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldOnlySettleOnceEveryQueuedCaseHasAFinalOutcome() throws InterruptedException {
+        retries.queued();
+        retries.queued();
+        retries.retry(1L);
+        retries.settled(2L);
+
+        assertThat(retries.awaitSettled(50, TimeUnit.MILLISECONDS)).isFalse();
+
+        retries.settled(1L);
+
+        assertThat(retries.awaitSettled(50, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldReturnWaitingRetriesWhenClosed() {
+        retries.queued();
+        retries.queued();
+        retries.retry(2L);
+        retries.retry(1L);
+
+        assertThat(retries.close()).containsExactly(1L, 2L);
+        assertThat(retries.retry(3L)).isEqualTo(-1);
+    }
+}
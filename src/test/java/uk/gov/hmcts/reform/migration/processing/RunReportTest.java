@@ -0,0 +1,83 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RunReportTest {
+
+    private static final String MIGRATION_ID = "DFPL-TEST";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldDoNothingWithoutADirectory() {
+        RunReport report = new RunReport("");
+
+        report.open(MIGRATION_ID);
+        report.record(1L, CaseOutcome.FAILED, null, 0);
+        report.finish(new long[]{1L});
+
+        assertThat(report.isEnabled()).isFalse();
+        assertThat(report.getFile()).isNull();
+    }
+
+    @Test
+    void shouldWriteALinePerCase() throws IOException {
+        RunReport report = new RunReport(directory.toString());
+
+        report.open(MIGRATION_ID);
+        Path file = report.getFile();
+        report.record(1L, CaseOutcome.MIGRATED, null, MILLISECONDS.toNanos(12));
+        report.record(2L, CaseOutcome.FAILED, new IllegalStateException("Bad data"), MILLISECONDS.toNanos(3));
+        report.finish(new long[]{2L});
+
+        assertThat(file.getFileName().toString()).startsWith(MIGRATION_ID + "-").endsWith(".ndjson");
+        assertThat(Files.readAllLines(file)).containsExactly(
+            "{\"id\":1,\"outcome\":\"MIGRATED\",\"error\":null,\"duration_ms\":12}",
+            "{\"id\":2,\"outcome\":\"FAILED\",\"error\":\"java.lang.IllegalStateException\",\"duration_ms\":3}");
+    }
+
+    @Test
+    void shouldSaveTheFailedIdsOnePerLine() throws IOException {
+        RunReport report = new RunReport(directory.toString());
+
+        report.open(MIGRATION_ID);
+        report.finish(new long[]{3L, 5L});
+
+        assertThat(Files.readAllLines(directory.resolve(MIGRATION_ID + "-failed.txt"))).containsExactly("3", "5");
+    }
+
+    @Test
+    void shouldRemoveTheFailedIdsOfAnEarlierRunWhenNoneFailed() {
+        RunReport report = new RunReport(directory.toString());
+        report.open(MIGRATION_ID);
+        report.finish(new long[]{3L});
+
+        report.open(MIGRATION_ID);
+        report.finish(new long[0]);
+
+        assertThat(directory.resolve(MIGRATION_ID + "-failed.txt")).doesNotExist();
+    }
+
+    @Test
+    void shouldKeepAddingToTheReportAlreadyOpen() throws IOException {
+        RunReport report = new RunReport(directory.toString());
+
+        report.open(MIGRATION_ID);
+        Path file = report.getFile();
+        report.record(1L, CaseOutcome.FAILED, null, 0);
+        report.open(MIGRATION_ID);
+        report.record(1L, CaseOutcome.MIGRATED, null, 0);
+        report.finish(new long[0]);
+
+        assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+}
@@ -0,0 +1,36 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleGateTest {
+
+    private final ThrottleGate gate = new ThrottleGate();
+
+    @Test
+    void shouldNotHoldCallersBackUntilPaused() {
+        assertThat(gate.isPaused()).isFalse();
+        assertThat(gate.awaitResume(0, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldHoldCallersBackUntilThePauseIsOver() {
+        gate.pauseFor(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(gate.isPaused()).isTrue();
+        assertThat(gate.awaitResume(1, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(gate.awaitResume(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(gate.isPaused()).isFalse();
+    }
+
+    @Test
+    void shouldNotCutALongerPauseShort() {
+        gate.pauseFor(TimeUnit.SECONDS.toNanos(60));
+        gate.pauseFor(0);
+
+        assertThat(gate.isPaused()).isTrue();
+    }
+}
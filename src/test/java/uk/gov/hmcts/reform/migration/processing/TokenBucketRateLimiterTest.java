@@ -0,0 +1,92 @@
+package uk.gov.hmcts.reform.migration.processing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void shouldAllowBurstWithoutWaiting() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 5);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(500);
+    }
+
+    @Test
+    void shouldHoldConcurrentCallersToTheRate() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(50, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 26; i++) {
+            pool.execute(limiter::acquire);
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // first permit is free, the other 25 are spaced 20ms apart
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(480);
+    }
+
+    @Test
+    void shouldNotWaitWhenUnlimited() {
+        TokenBucketRateLimiter limiter = TokenBucketRateLimiter.unlimited();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            limiter.acquire();
+        }
+
+        assertThat(limiter.isUnlimited()).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(500);
+    }
+
+    @Test
+    void shouldGiveUpWithoutWaitingWhenNoTokenIsDueWithinTheTimeout() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1);
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        assertThat(limiter.tryAcquire(100, TimeUnit.MILLISECONDS)).isFalse();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(100);
+    }
+
+    @Test
+    void shouldWaitForATokenDueWithinTheTimeout() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1);
+        limiter.acquire();
+
+        long started = System.nanoTime();
+        assertThat(limiter.tryAcquire(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void shouldNotTakeATokenWhenGivingUp() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1);
+        limiter.acquire();
+        assertThat(limiter.tryAcquire(0, TimeUnit.MILLISECONDS)).isFalse();
+
+        // the token due in 100ms is still there for the next caller
+        assertThat(limiter.tryAcquire(150, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldRejectEmptyBurst() {
+        assertThatThrownBy(() -> new TokenBucketRateLimiter(1, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -10,6 +10,7 @@ import uk.gov.hmcts.reform.fpl.model.common.Element;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -192,6 +193,40 @@ class DataMigrationServiceImplTest {
         assertThat(data.get("TTL")).isEqualTo(expectedTtl);
     }
 
+    @Test
+    void shouldPopulateTtlFromTheLatestOrderAsReturnedByCcd() {
+        final LocalDate latest = LocalDate.of(2023, 6, 30);
+        LocalDate expectedSystemTtl = latest.plusDays(6575);
+
+        Map<String, Object> expectedTtl = new HashMap<>();
+        expectedTtl.put("OverrideTTL", null);
+        expectedTtl.put("Suspended", "No");
+        expectedTtl.put("SystemTTL", expectedSystemTtl.toString());
+
+        // elements are plain maps when read from CCD, with the latest order neither first nor last
+        List<Map<String, Object>> orderCollection = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDate approved = latest.minusDays(1 + i % 400);
+            Map<String, Object> order = i % 2 == 0
+                ? Map.of("approvalDate", approved.toString())
+                : Map.of("approvalDateTime", "", "dateOfIssue",
+                    approved.format(DateTimeFormatter.ofPattern("d MMMM yyyy")));
+            orderCollection.add(Map.of("id", UUID.randomUUID().toString(), "value", order));
+        }
+        orderCollection.add(250, Map.of("id", UUID.randomUUID().toString(),
+            "value", Map.of("approvalDateTime", latest.atTime(16, 45, 10).toString())));
+
+        Map<String, Object> caseData = new HashMap<>();
+        caseData.put("orderCollection", orderCollection);
+
+        caseDetails = CaseDetails.builder()
+            .data(caseData)
+            .state("FINAL_HEARING").build();
+
+        Map<String, Object> data = dataMigrationService.triggerTtlMigration(caseDetails);
+        assertThat(data.get("TTL")).isEqualTo(expectedTtl);
+    }
+
     @Test
     void shouldPopulateTtlOnCaseManagementCaseWithoutOrders() {
         LocalDate now = LocalDate.now();
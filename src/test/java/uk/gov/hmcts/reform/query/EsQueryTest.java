@@ -47,6 +47,26 @@ class EsQueryTest {
         assertThat(queryInContext).usingRecursiveComparison().isEqualTo(expectedContext);
     }
 
+    @Test
+    void shouldAddSourceFieldsToSearchAfterQuery() {
+        EsQuery query = new TestClass();
+        Sort sort = Sort.builder()
+            .clauses(List.of(
+                SortQuery.of("reference", SortOrder.DESC)
+            ))
+            .build();
+        final JSONObject queryInContext = query.toQueryContext(2, "10", sort, List.of("data.court"));
+        final JSONObject expectedContext = new JSONObject(
+            Map.of("_source", List.of("reference", "jurisdiction", "data.court"),
+                "query", Map.of("test", "query"),
+                "track_total_hits", true,
+                "size", 2,
+                "search_after", List.of("10"),
+                "sort", List.of(Map.of("reference", Map.of("order", "desc")))));
+
+        assertThat(queryInContext).usingRecursiveComparison().isEqualTo(expectedContext);
+    }
+
     private static class TestClass implements EsQuery {
         @Override
         public Map<String, Object> toMap() {
@@ -1,5 +1,6 @@
 package uk.gov.hmcts.reform.repository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,16 +9,25 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.hmcts.reform.ccd.client.model.CaseDetails;
 import uk.gov.hmcts.reform.ccd.client.model.SearchResult;
 import uk.gov.hmcts.reform.migration.ccd.CoreCaseDataService;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
 import uk.gov.hmcts.reform.migration.query.BooleanQuery;
 import uk.gov.hmcts.reform.migration.query.EsQuery;
 import uk.gov.hmcts.reform.migration.query.ExistsQuery;
 import uk.gov.hmcts.reform.migration.query.Filter;
+import uk.gov.hmcts.reform.migration.query.Must;
+import uk.gov.hmcts.reform.migration.query.RangeQuery;
+import uk.gov.hmcts.reform.migration.query.Sort;
+import uk.gov.hmcts.reform.migration.query.SortOrder;
+import uk.gov.hmcts.reform.migration.query.SortQuery;
 import uk.gov.hmcts.reform.migration.repository.ElasticSearchRepository;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -49,7 +59,8 @@ class ElasticSearchRepositoryTest {
 
     @BeforeEach
     void setUp() {
-        elasticSearchRepository = new ElasticSearchRepository(coreCaseDataService);
+        elasticSearchRepository = new ElasticSearchRepository(coreCaseDataService,
+            new MigrationMetrics(new SimpleMeterRegistry(), "DFPL-TEST"));
     }
 
     @Test
@@ -68,17 +79,26 @@ class ElasticSearchRepositoryTest {
     }
 
     @Test
-    void shouldNotReturnCaseDetailsForCaseTypeWhenSearchResultIsNull() {
+    void shouldFailTheSearchWhenSearchResultIsNull() {
         when(coreCaseDataService.searchCases(
             USER_TOKEN,
             CASE_TYPE,
             QUERY.toQueryContext(1, SORT_BY_REF).toString()
         )).thenReturn(null);
-        List<CaseDetails> caseDetails = elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, 1, null);
 
-        assertThat(caseDetails)
-            .isNotNull()
-            .isEmpty();
+        // an empty page would end the results, so a missing one must not look like it
+        assertThatThrownBy(() -> elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, 1, null))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldLeaveRetryingAFailedSearchToTheCaller() {
+        RuntimeException failure = new RuntimeException("ES unavailable");
+        when(coreCaseDataService.searchCases(USER_TOKEN, CASE_TYPE, INITIAL_QUERY)).thenThrow(failure);
+
+        assertThatThrownBy(() -> elasticSearchRepository.search(USER_TOKEN, CASE_TYPE, QUERY, 1, null))
+            .isSameAs(failure);
+        verify(coreCaseDataService, times(1)).searchCases(USER_TOKEN, CASE_TYPE, INITIAL_QUERY);
     }
 
     @Test
@@ -102,4 +122,49 @@ class ElasticSearchRepositoryTest {
                                                       INITIAL_QUERY);
         assertThat(returnCaseDetails).hasSize(1);
     }
+
+    @Test
+    void shouldPartitionQueryIntoEqualReferenceRanges() {
+        Sort ascending = Sort.builder()
+            .clauses(List.of(SortQuery.of("reference.keyword", SortOrder.ASC)))
+            .build();
+        SearchResult lowest = searchResult(1000L);
+        SearchResult highest = searchResult(1999L);
+        when(coreCaseDataService.searchCases(USER_TOKEN, CASE_TYPE, QUERY.toQueryContext(1, ascending).toString()))
+            .thenReturn(lowest);
+        when(coreCaseDataService.searchCases(USER_TOKEN, CASE_TYPE, INITIAL_QUERY))
+            .thenReturn(highest);
+
+        List<EsQuery> slices = elasticSearchRepository.partitionByReference(USER_TOKEN, CASE_TYPE, QUERY, 2);
+
+        assertThat(slices).containsExactly(slice(1000L, 1500L), slice(1500L, 2000L));
+    }
+
+    @Test
+    void shouldNotPartitionQueryWithoutResults() {
+        when(coreCaseDataService.searchCases(eq(USER_TOKEN), eq(CASE_TYPE), anyString())).thenReturn(null);
+
+        List<EsQuery> slices = elasticSearchRepository.partitionByReference(USER_TOKEN, CASE_TYPE, QUERY, 2);
+
+        assertThat(slices).containsExactly(QUERY);
+    }
+
+    private static SearchResult searchResult(long caseId) {
+        SearchResult searchResult = mock(SearchResult.class);
+        when(searchResult.getCases()).thenReturn(List.of(CaseDetails.builder().id(caseId).build()));
+        return searchResult;
+    }
+
+    private static EsQuery slice(long from, long to) {
+        return BooleanQuery.builder()
+            .must(Must.of(QUERY))
+            .filter(Filter.builder()
+                .clauses(List.of(RangeQuery.builder()
+                    .field("reference")
+                    .greaterThanOrEqual(from)
+                    .lessThan(to)
+                    .build()))
+                .build())
+            .build();
+    }
 }
@@ -1,11 +1,13 @@
 package uk.gov.hmcts.reform.repository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.hmcts.reform.idam.client.IdamClient;
+import uk.gov.hmcts.reform.migration.processing.MigrationMetrics;
 import uk.gov.hmcts.reform.migration.repository.IdamRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,7 +29,8 @@ class IdamRepositoryTest {
 
     @BeforeEach
     void setUp() {
-        idamRepository = new IdamRepository(IDAM_USER_NAME, IDAM_PASS, idamClient);
+        idamRepository = new IdamRepository(IDAM_USER_NAME, IDAM_PASS, idamClient,
+            new MigrationMetrics(new SimpleMeterRegistry(), "DFPL-TEST"));
     }
 
     @Test